@@ -0,0 +1,78 @@
+package com.bankleads.bank_leads_backend.config;
+
+import com.bankleads.bank_leads_backend.model.User;
+import com.bankleads.bank_leads_backend.repository.UserRepository;
+import com.bankleads.bank_leads_backend.service.MetadataCacheService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Authenticated principals keyed by bearer token (the user id), so the auth filter does not hit Mongo on
+ * every request. Concurrent misses for the same token share one load; unknown tokens are not cached.
+ * UserService invalidates entries when a user is updated or deleted.
+ */
+@Component
+public class AuthPrincipalCache {
+
+    private final UserRepository userRepository;
+    private final LoadingCache<String, Principal> principals;
+
+    public AuthPrincipalCache(UserRepository userRepository,
+                              @Value("${app.cache.principals.ttl-seconds:60}") long ttlSeconds,
+                              @Value("${app.cache.principals.max-size:10000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.principals = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build(this::load);
+    }
+
+    /**
+     * @return the principal for the token, or null if no user has that id
+     */
+    public Principal get(String token) {
+        return principals.get(token);
+    }
+
+    public void invalidate(String userId) {
+        if (userId != null) {
+            principals.invalidate(userId);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return MetadataCacheService.describe(principals);
+    }
+
+    private Principal load(String token) {
+        return userRepository.findById(token)
+                .map(user -> new Principal(user.getUsername(), user.getRole(),
+                        List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()))))
+                .orElse(null);
+    }
+
+    public static class Principal {
+        private final String username;
+        private final User.Role role;
+        private final List<GrantedAuthority> authorities;
+
+        Principal(String username, User.Role role, List<GrantedAuthority> authorities) {
+            this.username = username;
+            this.role = role;
+            this.authorities = authorities;
+        }
+
+        public String getUsername() { return username; }
+        public User.Role getRole() { return role; }
+        public List<GrantedAuthority> getAuthorities() { return authorities; }
+    }
+}
@@ -1,27 +1,22 @@
 package com.bankleads.bank_leads_backend.config;
 
-import com.bankleads.bank_leads_backend.model.User;
-import com.bankleads.bank_leads_backend.repository.UserRepository;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final UserRepository userRepository;
+    private final AuthPrincipalCache authPrincipalCache;
 
     @Override
     protected void doFilterInternal(
@@ -35,28 +30,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
                 String token = authHeader.substring(7); // Remove "Bearer " prefix
                 
-                // Token is the user ID (from frontend: localStorage.setItem('authToken', response.data.id))
-                var user = userRepository.findById(token);
+                // Token is the user ID (from frontend: localStorage.setItem('authToken', response.data.id));
+                // resolved through the principal cache instead of a user lookup per request
+                AuthPrincipalCache.Principal principal = authPrincipalCache.get(token);
                 
-                if (user.isPresent()) {
-                    User foundUser = user.get();
-                    
-                    // Create authorities based on user role
-                    List<SimpleGrantedAuthority> authorities = new ArrayList<>();
-                    authorities.add(new SimpleGrantedAuthority("ROLE_" + foundUser.getRole().name()));
-                    
+                if (principal != null) {
                     // Create authentication token
                     UsernamePasswordAuthenticationToken authentication = 
                         new UsernamePasswordAuthenticationToken(
-                            foundUser.getUsername(),
+                            principal.getUsername(),
                             null,
-                            authorities
+                            principal.getAuthorities()
                         );
                     
                     // Set the authentication in the context
                     SecurityContextHolder.getContext().setAuthentication(authentication);
                     
-                    logger.debug("Set user authentication: " + foundUser.getUsername() + " with role: " + foundUser.getRole());
+                    logger.debug("Set user authentication: " + principal.getUsername() + " with role: " + principal.getRole());
                 }
             }
         } catch (Exception e) {
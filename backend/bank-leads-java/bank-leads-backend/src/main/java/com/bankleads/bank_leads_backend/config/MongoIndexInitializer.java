@@ -0,0 +1,118 @@
+package com.bankleads.bank_leads_backend.config;
+
+import com.bankleads.bank_leads_backend.model.IdentifierLease;
+import com.bankleads.bank_leads_backend.model.Lead;
+import com.bankleads.bank_leads_backend.model.LeadMergeEvent;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates the indexes the lead queries depend on. spring.data.mongodb.auto-index-creation is off, so the
+ * @Indexed/@CompoundIndex annotations do nothing by themselves; the indexes named here are resolved from those
+ * annotations and created with createIndex (a no-op when they already exist). An index replaced under a new
+ * name is dropped only once its replacement is in place, so queries keep an index meanwhile; only an index
+ * whose key spec clashes with a new one has to be dropped first. Runs on a background thread once the
+ * application is ready, so startup does not wait for index builds on a large collection; {@link #isReady} tells
+ * queries that hint an index when it is in place.
+ */
+@Component
+@RequiredArgsConstructor
+public class MongoIndexInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    // Annotation-declared indexes to create, by entity
+    private static final Map<Class<?>, Set<String>> INDEXES = new LinkedHashMap<>();
+    // Indexes with the key spec of a new one under another name, dropped before the new one is created
+    private static final Map<Class<?>, List<String>> CONFLICTING_INDEXES = new LinkedHashMap<>();
+    // Indexes superseded by a different definition, by entity: retired name -> name of its replacement
+    private static final Map<Class<?>, Map<String, String>> RETIRED_INDEXES = new LinkedHashMap<>();
+
+    static {
+        // lead_dashboard_index was {pId, sourceId, createdAt}; cursor paging needs _id as the last key.
+        // searchTokens is the default name of the same token index if it was built while still unnamed
+        INDEXES.put(Lead.class, Set.of("lead_dashboard_cursor_index", "lead_search_tokens_index", "lead_ranking_index"));
+        CONFLICTING_INDEXES.put(Lead.class, List.of("searchTokens"));
+        RETIRED_INDEXES.put(Lead.class, Map.of("lead_dashboard_index", "lead_dashboard_cursor_index"));
+        // Per-lead history reads and the leadId $in reassignment after each dedup batch
+        INDEXES.put(LeadMergeEvent.class, Set.of("lead_merge_event_history_index"));
+        // Removes expired identifier leases (app.locks.identifiers.distributed) left behind by crashed nodes
+        INDEXES.put(IdentifierLease.class, Set.of("identifier_lease_ttl_index"));
+    }
+
+    private final MongoTemplate mongoTemplate;
+
+    // Names of the indexes created (or found in place) by this run
+    private final Set<String> readyIndexes = ConcurrentHashMap.newKeySet();
+
+    public boolean isReady(String indexName) {
+        return readyIndexes.contains(indexName);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread thread = new Thread(this::createIndexes, "mongo-index-init");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void createIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        CONFLICTING_INDEXES.forEach((type, names) -> names.forEach(name -> dropIfPresent(type, name)));
+        INDEXES.forEach((type, names) -> {
+            IndexOperations indexOps = mongoTemplate.indexOps(type);
+            for (IndexDefinition definition : resolver.resolveIndexFor(type)) {
+                Object name = definition.getIndexOptions().get("name");
+                if (!names.contains(name)) {
+                    continue;
+                }
+                try {
+                    indexOps.createIndex(definition);
+                    readyIndexes.add((String) name);
+                    log.info("Index {} on {} is in place", name, mongoTemplate.getCollectionName(type));
+                } catch (RuntimeException e) {
+                    log.error("Failed to create index {} on {}: {}", name, mongoTemplate.getCollectionName(type), e.getMessage());
+                }
+            }
+        });
+        RETIRED_INDEXES.forEach((type, replacements) -> replacements.forEach((name, replacement) -> {
+            if (readyIndexes.contains(replacement)) {
+                dropIfPresent(type, name);
+            } else {
+                log.warn("Keeping retired index {} on {} until {} is in place",
+                        name, mongoTemplate.getCollectionName(type), replacement);
+            }
+        }));
+    }
+
+    private void dropIfPresent(Class<?> type, String name) {
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(type);
+            for (IndexInfo index : indexOps.getIndexInfo()) {
+                if (name.equals(index.getName())) {
+                    indexOps.dropIndex(name);
+                    log.info("Dropped index {} on {}", name, mongoTemplate.getCollectionName(type));
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to drop index {} on {}: {}", name, mongoTemplate.getCollectionName(type), e.getMessage());
+        }
+    }
+}
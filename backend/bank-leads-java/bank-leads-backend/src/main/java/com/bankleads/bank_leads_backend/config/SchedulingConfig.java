@@ -0,0 +1,10 @@
+package com.bankleads.bank_leads_backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+    // Scheduled jobs (e.g. LeadBatchScoringService) are off unless their cron property is set
+}
@@ -3,6 +3,7 @@ package com.bankleads.bank_leads_backend.controller;
 import com.bankleads.bank_leads_backend.dto.response.ApiResponse;
 import com.bankleads.bank_leads_backend.model.CanonicalField;
 import com.bankleads.bank_leads_backend.repository.CanonicalFieldRepository;
+import com.bankleads.bank_leads_backend.service.MetadataCacheService;
 import com.bankleads.bank_leads_backend.util.ResponseUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -24,6 +25,7 @@ import java.util.Map;
 public class CanonicalFieldController {
     
     private final CanonicalFieldRepository canonicalFieldRepository;
+    private final MetadataCacheService metadataCacheService;
     
     @GetMapping
     public ResponseEntity<ApiResponse<Page<CanonicalField>>> getCanonicalFields(
@@ -92,6 +94,7 @@ public class CanonicalFieldController {
                 .build();
         
         CanonicalField saved = canonicalFieldRepository.save(field);
+        metadataCacheService.invalidateCanonicalFields();
         return ResponseUtil.success(saved, "Field created", HttpStatus.CREATED);
     }
     
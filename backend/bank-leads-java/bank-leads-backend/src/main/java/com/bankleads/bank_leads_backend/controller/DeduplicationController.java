@@ -4,6 +4,7 @@ import com.bankleads.bank_leads_backend.dto.response.ApiResponse;
 import com.bankleads.bank_leads_backend.model.Product;
 import com.bankleads.bank_leads_backend.repository.ProductRepository;
 import com.bankleads.bank_leads_backend.service.DeduplicationService;
+import com.bankleads.bank_leads_backend.service.MetadataCacheService;
 import com.bankleads.bank_leads_backend.service.ProductDeduplicationService;
 import com.bankleads.bank_leads_backend.util.ResponseUtil;
 import lombok.RequiredArgsConstructor;
@@ -26,6 +27,7 @@ public class DeduplicationController {
     private final DeduplicationService deduplicationService;
     private final ProductDeduplicationService productDeduplicationService;
     private final ProductRepository productRepository;
+    private final MetadataCacheService metadataCacheService;
     
     @GetMapping("/rules")
     public ResponseEntity<ApiResponse<DeduplicationService.DeduplicationConfig>> getDeduplicationRules() {
@@ -72,6 +74,24 @@ public class DeduplicationController {
         return ResponseUtil.success(deduplicationService.getDeduplicationStats());
     }
 
+    /** Dry run of per-product lead deduplication: duplicate groups (lead ids) found by aggregation, nothing merged. */
+    @GetMapping("/preview/by-product")
+    public ResponseEntity<ApiResponse<DeduplicationService.DeduplicationPreview>> previewDeduplicationByProduct(
+            @RequestParam String productId,
+            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseUtil.success(deduplicationService.previewDeduplicationForProduct(productId, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseUtil.error(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/preview/by-product/all")
+    public ResponseEntity<ApiResponse<Map<String, DeduplicationService.DeduplicationPreview>>> previewDeduplicationForAllProducts(
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseUtil.success(deduplicationService.previewDeduplicationForAllProducts(limit));
+    }
+
     // ---------- Product deduplication (by normalized p_name) ----------
 
     @GetMapping("/products/preview")
@@ -135,6 +155,7 @@ public class DeduplicationController {
                 .map(product -> {
                     product.setDeduplicationFields(finalFields);
                     Product saved = productRepository.save(product);
+                    metadataCacheService.invalidateProducts();
                     return ResponseUtil.success(saved, "Product deduplication config updated");
                 })
                 .orElse(ResponseUtil.error("Product not found: " + pId, HttpStatus.NOT_FOUND));
@@ -1,7 +1,11 @@
 package com.bankleads.bank_leads_backend.controller;
 
+import com.bankleads.bank_leads_backend.config.AuthPrincipalCache;
 import com.bankleads.bank_leads_backend.dto.response.ApiResponse;
+import com.bankleads.bank_leads_backend.service.LeadScoringService;
+import com.bankleads.bank_leads_backend.service.MetadataCacheService;
 import com.bankleads.bank_leads_backend.util.ResponseUtil;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,8 +17,13 @@ import java.util.Map;
 
 @RestController
 @CrossOrigin(origins = "*")
+@RequiredArgsConstructor
 public class HealthController {
     
+    private final MetadataCacheService metadataCacheService;
+    private final AuthPrincipalCache authPrincipalCache;
+    private final LeadScoringService leadScoringService;
+    
     @GetMapping("/health")
     public ResponseEntity<ApiResponse<Map<String, Object>>> health() {
         Map<String, Object> data = new HashMap<>();
@@ -22,4 +31,17 @@ public class HealthController {
         data.put("timestamp", LocalDateTime.now().toString());
         return ResponseUtil.success(data);
     }
+    
+    @GetMapping("/health/caches")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> caches() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("metadata", metadataCacheService.getStats());
+        data.put("principals", authPrincipalCache.getStats());
+        return ResponseUtil.success(data);
+    }
+    
+    @GetMapping("/health/scoring")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> scoring() {
+        return ResponseUtil.success(leadScoringService.getEngineStatus());
+    }
 }
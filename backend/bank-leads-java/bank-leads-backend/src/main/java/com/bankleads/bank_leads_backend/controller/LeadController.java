@@ -2,26 +2,30 @@ package com.bankleads.bank_leads_backend.controller;
 
 import com.bankleads.bank_leads_backend.dto.request.CreateLeadRequest;
 import com.bankleads.bank_leads_backend.dto.response.ApiResponse;
+import com.bankleads.bank_leads_backend.dto.response.CursorPage;
 import com.bankleads.bank_leads_backend.dto.response.LeadDTO;
-import com.bankleads.bank_leads_backend.model.CanonicalField;
 import com.bankleads.bank_leads_backend.model.Lead;
-import com.bankleads.bank_leads_backend.model.Product;
-import com.bankleads.bank_leads_backend.model.Source;
-import com.bankleads.bank_leads_backend.repository.CanonicalFieldRepository;
+import com.bankleads.bank_leads_backend.model.LeadMergeEvent;
+import com.bankleads.bank_leads_backend.model.LeadSummary;
+import com.bankleads.bank_leads_backend.model.UploadJob;
 import com.bankleads.bank_leads_backend.repository.LeadRepository;
-import com.bankleads.bank_leads_backend.repository.ProductRepository;
-import com.bankleads.bank_leads_backend.repository.SourceRepository;
 import com.bankleads.bank_leads_backend.service.CanonicalFieldDeduplicationService;
-import com.bankleads.bank_leads_backend.service.DeduplicationService;
+import com.bankleads.bank_leads_backend.service.LeadBatchScoringService;
 import com.bankleads.bank_leads_backend.service.LeadScoringService;
+import com.bankleads.bank_leads_backend.service.LeadEnrichmentService;
+import com.bankleads.bank_leads_backend.service.LeadExportService;
+import com.bankleads.bank_leads_backend.service.LeadHistoryService;
+import com.bankleads.bank_leads_backend.service.LeadSearchService;
+import com.bankleads.bank_leads_backend.service.LeadQueryService;
+import com.bankleads.bank_leads_backend.service.LeadRankingService;
 import com.bankleads.bank_leads_backend.service.LeadService;
-import com.bankleads.bank_leads_backend.util.CsvParserUtil;
-import com.bankleads.bank_leads_backend.util.CsvValidationUtil;
+import com.bankleads.bank_leads_backend.service.LeadUploadService;
+import com.bankleads.bank_leads_backend.service.MetadataCacheService;
+import com.bankleads.bank_leads_backend.service.UploadJobService;
 import com.bankleads.bank_leads_backend.util.LeadNormalizationUtil;
 import com.bankleads.bank_leads_backend.util.ResponseUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.apache.poi.ss.usermodel.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
@@ -32,12 +36,19 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.security.access.prepost.PreAuthorize;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -51,14 +62,20 @@ public class LeadController {
     private static final Logger log = LoggerFactory.getLogger(LeadController.class);
     
     private final LeadRepository leadRepository;
-    private final ProductRepository productRepository;
-    private final SourceRepository sourceRepository;
-    private final CanonicalFieldRepository canonicalFieldRepository;
+    private final MetadataCacheService metadataCacheService;
     private final LeadService leadService;
     private final LeadScoringService leadScoringService;
+    private final LeadBatchScoringService leadBatchScoringService;
+    private final LeadRankingService leadRankingService;
     private final CanonicalFieldDeduplicationService canonicalFieldDeduplicationService;
-    private final DeduplicationService deduplicationService;
     private final MongoTemplate mongoTemplate;
+    private final LeadUploadService leadUploadService;
+    private final UploadJobService uploadJobService;
+    private final LeadEnrichmentService leadEnrichmentService;
+    private final LeadQueryService leadQueryService;
+    private final LeadExportService leadExportService;
+    private final LeadHistoryService leadHistoryService;
+    private final LeadSearchService leadSearchService;
     
     
     @PreAuthorize("hasRole('ADMIN')")
@@ -66,305 +83,83 @@ public class LeadController {
     public ResponseEntity<ApiResponse<Map<String, Object>>> uploadLeads(
             @RequestParam("file") MultipartFile file,
             @RequestParam("p_id") String pId,
-            @RequestParam("source_id") String sourceId) {
+            @RequestParam("source_id") String sourceId,
+            @RequestParam(value = "async", defaultValue = "false") boolean async) {
         
         final String pIdUpper = pId != null ? pId.toUpperCase() : null;
         final String sourceIdUpper = sourceId != null ? sourceId.toUpperCase() : null;
-        log.info("Lead upload started: filename={}, sizeBytes={}, p_id={}, source_id={}",
+        log.info("Lead upload started: filename={}, sizeBytes={}, p_id={}, source_id={}, async={}",
                 file != null ? file.getOriginalFilename() : null,
                 file != null ? file.getSize() : null,
-                pIdUpper, sourceIdUpper);
+                pIdUpper, sourceIdUpper, async);
 
         if (file.isEmpty()) {
             log.warn("Lead upload rejected: empty file (p_id={}, source_id={})", pIdUpper, sourceIdUpper);
             return ResponseUtil.error("File is required", HttpStatus.BAD_REQUEST);
         }
         
-        if (!productRepository.existsByPId(pIdUpper)) {
-            log.warn("Lead upload rejected: product not found (p_id={})", pIdUpper);
-            return ResponseUtil.error("Product '" + pId + "' not found",
-                    HttpStatus.BAD_REQUEST);
-        }
-        
-        if (!sourceRepository.existsBySourceId(sourceIdUpper)) {
-            log.warn("Lead upload rejected: source not found (source_id={})", sourceIdUpper);
-            return ResponseUtil.error("Source '" + sourceId + "' not found",
-                    HttpStatus.BAD_REQUEST);
+        try {
+            leadUploadService.validateRequest(file.getOriginalFilename(), pId, sourceId);
+        } catch (LeadUploadService.UploadRejectedException e) {
+            return ResponseUtil.error(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
         
-        try {
-            // Fetch related metadata for debugging (does not affect upload behavior)
-            Optional<Source> sourceOpt = sourceRepository.findBySourceId(sourceIdUpper);
-            List<String> sourceColumns = sourceOpt.map(Source::getColumns).orElse(null);
-            log.info("Source columns for validation/debug (source_id={}): {}", sourceIdUpper, sourceColumns);
-
-            // Log canonical fields (active + required) - currently not enforced for upload
-            Page<CanonicalField> canonicalPage = canonicalFieldRepository.findAll(PageRequest.of(0, 1000));
-            List<String> canonicalNames = canonicalPage.getContent().stream()
-                    .map(CanonicalField::getFieldName)
-                    .filter(Objects::nonNull)
-                    .toList();
-            List<String> requiredCanonicalNames = canonicalPage.getContent().stream()
-                    .filter(f -> Boolean.TRUE.equals(f.getIsActive()) && Boolean.TRUE.equals(f.getIsRequired()))
-                    .map(CanonicalField::getFieldName)
-                    .filter(Objects::nonNull)
-                    .toList();
-            log.info("Canonical fields loaded: count={}, names={}", canonicalNames.size(), canonicalNames);
-            log.info("Required canonical fields (active+required): {}", requiredCanonicalNames);
-
-            // Keep row numbers for logging/debug; does not change core upload logic
-            class RowCtx {
-                final int rowNumber; // 1-based excluding header for CSV; Excel uses sheet row number
-                final Map<String, String> raw;
-                final Map<String, String> normalized;
-                RowCtx(int rowNumber, Map<String, String> raw, Map<String, String> normalized) {
-                    this.rowNumber = rowNumber;
-                    this.raw = raw;
-                    this.normalized = normalized;
-                }
-            }
-
-            // Get active canonical fields for validation
-            List<CanonicalField> activeCanonicalFields = canonicalPage.getContent().stream()
-                    .filter(f -> f.getIsActive() != null && f.getIsActive())
-                    .collect(Collectors.toList());
-            
-            List<RowCtx> rows = new ArrayList<>();
-            String filename = file.getOriginalFilename().toLowerCase();
-            
-            if (filename.endsWith(".csv")) {
-                // Parse CSV with canonical field validation (field count + datatype + required fields)
-                CsvParserUtil.ParseResult parseResult = CsvParserUtil.parseCSV(file.getBytes(), activeCanonicalFields);
-
-                // Log parse-stage failures (headers and mapping are logged inside CsvParserUtil)
-                if (!parseResult.getInvalidRows().isEmpty()) {
-                    log.warn("CSV parse produced invalid rows: invalidCount={}", parseResult.getInvalidRows().size());
-                    for (CsvParserUtil.ParsedRow r : parseResult.getInvalidRows()) {
-                        log.warn("Row {} failed during parsing/normalization: {}", r.getRow(), r.getErrors());
-                    }
-                }
-                
-                if (!parseResult.isSuccess() || parseResult.getValidRows().isEmpty()) {
-                    log.warn("Lead upload rejected: CSV parse failed or no valid rows (invalidCount={})",
-                            parseResult.getInvalidRows().size());
-                    return ResponseUtil.error("Failed to parse CSV or no valid rows found",
-                            HttpStatus.BAD_REQUEST,
-                            parseResult.getInvalidRows().stream().map(r -> Map.of(
-                                    "rowNumber", r.getRow(),
-                                    "reason", String.join("; ", r.getErrors()),
-                                    "rawInput", r.getData()
-                            )).collect(Collectors.toList()));
-                }
-                
-                for (CsvParserUtil.ParsedRow parsedRow : parseResult.getValidRows()) {
-                    // parsedRow.getRow() is the CSV line number (header is row 1)
-                    rows.add(new RowCtx(parsedRow.getRow() - 1, parsedRow.getData(), parsedRow.getData()));
-                }
-            } else if (filename.endsWith(".xlsx") || filename.endsWith(".xls")) {
-                Workbook workbook = WorkbookFactory.create(file.getInputStream());
-                Sheet sheet = workbook.getSheetAt(0);
-                
-                if (sheet == null || sheet.getPhysicalNumberOfRows() < 2) {
-                    return ResponseUtil.error("Excel file has no data rows",
-                            HttpStatus.BAD_REQUEST);
-                }
-                
-                Row headerRow = sheet.getRow(0);
-                List<String> headers = new ArrayList<>();
-                for (Cell cell : headerRow) {
-                    headers.add(getCellValueAsString(cell));
-                }
-                
-                Map<String, String> headerMapping = LeadNormalizationUtil.normalizeHeaders(
-                        headers.toArray(new String[0]));
-                log.info("Excel headers parsed: {}", headers);
-                log.info("Excel header mapping (original->canonical): {}", headerMapping);
-                
-                // Validate field count for Excel
-                CsvValidationUtil.ValidationResult countValidation = CsvValidationUtil.validateFieldCount(headers, activeCanonicalFields);
-                if (!countValidation.isValid()) {
-                    log.warn("Excel field count validation failed: {}", String.join("; ", countValidation.getErrors()));
-                    return ResponseUtil.error("Excel validation failed: " + String.join("; ", countValidation.getErrors()),
-                            HttpStatus.BAD_REQUEST);
-                }
-                
-                // Validate headers for Excel
-                CsvValidationUtil.ValidationResult headerValidation = CsvValidationUtil.validateHeaders(headers, activeCanonicalFields);
-                if (!headerValidation.isValid()) {
-                    log.warn("Excel header validation failed: {}", String.join("; ", headerValidation.getErrors()));
-                    return ResponseUtil.error("Excel validation failed: " + String.join("; ", headerValidation.getErrors()),
-                            HttpStatus.BAD_REQUEST);
-                }
-                
-                // Create field map for Excel data type validation
-                Map<String, CanonicalField> fieldMap = new HashMap<>();
-                for (CanonicalField field : activeCanonicalFields) {
-                    String normalizedName = field.getFieldName().toLowerCase().trim();
-                    fieldMap.put(normalizedName, field);
-                }
-                
-                List<Map<String, Object>> excelInvalidRows = new ArrayList<>();
-                
-                for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                    Row row = sheet.getRow(i);
-                    if (row == null) continue;
-                    
-                    Map<String, String> rowData = new HashMap<>();
-                    for (int j = 0; j < headers.size(); j++) {
-                        Cell cell = row.getCell(j);
-                        rowData.put(headers.get(j), getCellValueAsString(cell));
-                    }
-                    
-                    // Validate row data types and required fields
-                    CsvValidationUtil.ValidationResult rowValidation = CsvValidationUtil.validateRow(rowData, fieldMap, headerMapping);
-                    if (!rowValidation.isValid()) {
-                        log.warn("Row {} failed Excel datatype validation: {}", i, String.join("; ", rowValidation.getErrors()));
-                        excelInvalidRows.add(Map.of(
-                                "rowNumber", i,
-                                "reason", String.join("; ", rowValidation.getErrors()),
-                                "rawInput", rowData
-                        ));
-                        continue;
-                    }
-                    
-                    Map<String, String> normalized = LeadNormalizationUtil.normalizeRowValues(rowData, headerMapping);
-                    
-                    if (LeadNormalizationUtil.validateIdentifiers(normalized)) {
-                        int rowNumber = i; // 1-based excluding header (header is row 0)
-                        rows.add(new RowCtx(rowNumber, rowData, normalized));
-                    } else {
-                        log.warn("Row {} failed identifier validation (Excel): rawKeys={}, normalizedKeys={}",
-                                i, rowData.keySet(), normalized.keySet());
-                        excelInvalidRows.add(Map.of(
-                                "rowNumber", i,
-                                "reason", "At least one identifier (phone_number, email, or aadhar_number) is required",
-                                "rawInput", rowData
-                        ));
-                    }
-                }
-                
-                // Return error if any Excel rows failed validation
-                if (!excelInvalidRows.isEmpty()) {
-                    log.warn("Lead upload rejected: Excel file has invalid rows (invalidCount={})", excelInvalidRows.size());
-                    return ResponseUtil.error("Excel file contains validation errors",
-                            HttpStatus.BAD_REQUEST,
-                            excelInvalidRows.stream().limit(100).collect(Collectors.toList()));
-                }
-                
-                workbook.close();
-            } else {
-                return ResponseUtil.error("Unsupported file format. Use CSV or Excel (.xlsx, .xls)",
-                        HttpStatus.BAD_REQUEST);
-            }
-            
-            if (rows.isEmpty()) {
-                log.warn("Lead upload rejected: no valid data rows after parsing (p_id={}, source_id={})",
-                        pIdUpper, sourceIdUpper);
-                return ResponseUtil.error("File contains no valid data rows",
-                        HttpStatus.BAD_REQUEST);
-            }
-            
-            int insertedCount = 0;
-            int mergedCount = 0;
-            int failedCount = 0;
-            List<Map<String, Object>> failedRows = new ArrayList<>();
-            
-            for (int i = 0; i < rows.size(); i++) {
-                RowCtx rowCtx = rows.get(i);
-                Map<String, String> normalized = rowCtx.normalized;
-                try {
-                    LeadService.UpsertContext ctx = new LeadService.UpsertContext(
-                            pIdUpper,
-                            sourceIdUpper,
-                            normalized
-                    );
-                    
-                    LeadService.UpsertResult result = leadService.upsertLead(normalized, ctx);
-                    
-                    if ("inserted".equals(result.getAction())) {
-                        insertedCount++;
-                    } else {
-                        mergedCount++;
-                    }
-                } catch (Exception e) {
-                    failedCount++;
-                    String reason = e.getMessage() != null ? e.getMessage() : "Processing error";
-                    log.error("Row {} failed during upsert: {}", rowCtx.rowNumber, reason, e);
-                    failedRows.add(Map.of(
-                            "rowNumber", rowCtx.rowNumber,           // Frontend expects rowNumber
-                            "reason", reason,
-                            "rawInput", rowCtx.raw                   // For debugging
-                    ));
-                }
-            }
-            
-            Map<String, Object> responseData = new HashMap<>();
-            responseData.put("totalRows", rows.size());
-            responseData.put("insertedCount", insertedCount);
-            responseData.put("mergedCount", mergedCount);
-            responseData.put("failedCount", failedCount);
-            responseData.put("failedRows", failedRows.size() > 100 
-                    ? failedRows.subList(0, 100) : failedRows);
-
-            log.info("Lead upload completed: totalRows={}, insertedCount={}, mergedCount={}, failedCount={} (p_id={}, source_id={})",
-                    rows.size(), insertedCount, mergedCount, failedCount, pIdUpper, sourceIdUpper);
-
-            // Run automatic deduplication per product using each product's configured dedup fields
+        if (async) {
+            // Returns immediately; progress via GET /upload/{jobId} or /upload/{jobId}/events
             try {
-                Map<String, DeduplicationService.DeduplicationStats> perProductStats =
-                        deduplicationService.executeDeduplicationForAllProducts();
-                long totalLeadsBefore = 0;
-                long duplicatesFound = 0;
-                int dedupMergedCount = 0;
-                for (DeduplicationService.DeduplicationStats s : perProductStats.values()) {
-                    if (s != null) {
-                        totalLeadsBefore += s.getTotalLeads();
-                        duplicatesFound += s.getDuplicatesFound();
-                        dedupMergedCount += s.getMergedCount();
-                    }
-                }
-                long finalLeadCount = leadRepository.count();
-                responseData.put("deduplication", Map.of(
-                        "totalLeadsBefore", totalLeadsBefore,
-                        "duplicatesFound", duplicatesFound,
-                        "mergedCount", dedupMergedCount,
-                        "finalLeadCount", finalLeadCount
-                ));
-                log.info("Automatic per-product deduplication after upload: mergedCount={}, finalLeadCount={}",
-                        dedupMergedCount, finalLeadCount);
+                UploadJob job = uploadJobService.submit(file, pIdUpper, sourceIdUpper);
+                return ResponseUtil.success(Map.of(
+                        "jobId", job.getId(),
+                        "status", job.getStatus()
+                ), "Upload accepted", HttpStatus.ACCEPTED);
+            } catch (IllegalStateException e) {
+                return ResponseUtil.error(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
             } catch (Exception e) {
-                log.warn("Automatic deduplication after upload failed (upload succeeded): {}", e.getMessage());
-                responseData.put("deduplication", Map.of(
-                        "error", e.getMessage() != null ? e.getMessage() : "Deduplication failed"
-                ));
+                log.error("Lead upload job submission failed: {}", e.getMessage(), e);
+                return ResponseUtil.error("Failed to store file: " + e.getMessage(),
+                        HttpStatus.INTERNAL_SERVER_ERROR);
             }
-            
+        }
+        
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile("lead-upload-", null);
+            file.transferTo(tempFile);
+            Map<String, Object> responseData = leadUploadService.process(tempFile, file.getOriginalFilename(),
+                    pIdUpper, sourceIdUpper, LeadUploadService.ProgressListener.NONE);
             return ResponseUtil.success(responseData, "Upload completed");
+        } catch (LeadUploadService.UploadRejectedException e) {
+            return ResponseUtil.error(e.getMessage(), HttpStatus.BAD_REQUEST, e.getDetails());
         } catch (Exception e) {
             log.error("Lead upload failed with exception: {}", e.getMessage(), e);
             return ResponseUtil.error("Failed to process file: " + e.getMessage(),
                     HttpStatus.INTERNAL_SERVER_ERROR);
+        } finally {
+            deleteQuietly(tempFile);
         }
     }
     
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) return "";
-        
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getDateCellValue().toString();
-                } else {
-                    return String.valueOf((long) cell.getNumericCellValue());
-                }
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            case FORMULA:
-                return cell.getCellFormula();
-            default:
-                return "";
+    @GetMapping("/upload/{jobId}")
+    public ResponseEntity<ApiResponse<UploadJob>> getUploadJob(@PathVariable String jobId) {
+        return uploadJobService.getJob(jobId)
+                .map(ResponseUtil::success)
+                .orElse(ResponseUtil.error("Upload job '" + jobId + "' not found", HttpStatus.NOT_FOUND));
+    }
+    
+    @GetMapping(value = "/upload/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamUploadJob(@PathVariable String jobId) {
+        if (uploadJobService.getJob(jobId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(uploadJobService.subscribe(jobId));
+    }
+    
+    private static void deleteQuietly(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete upload temp file {}: {}", path, e.getMessage());
         }
     }
 
@@ -435,74 +230,27 @@ public class LeadController {
             @RequestParam(defaultValue = "createdAt") String sort,
             @RequestParam(defaultValue = "desc") String order) {
         
-        Pageable pageable = PageRequest.of(page - 1, Math.min(10000, Math.max(1, limit)),
-                Sort.by("desc".equalsIgnoreCase(order) ? Sort.Direction.DESC : Sort.Direction.ASC, sort));
-        
-        Query query = new Query();
+        List<Criteria> filter = leadQueryService.buildFilter(p_id, source_id, from, to, q);
         
-        if (p_id != null) {
-            query.addCriteria(Criteria.where("pId").is(p_id.toUpperCase()));
-        }
-        
-        if (source_id != null) {
-            query.addCriteria(Criteria.where("sourceId").is(source_id.toUpperCase()));
-        }
-        
-        if (from != null || to != null) {
-            Criteria dateCriteria = Criteria.where("createdAt");
-            if (from != null) {
-                dateCriteria.gte(LocalDateTime.parse(from));
-            }
-            if (to != null) {
-                dateCriteria.lte(LocalDateTime.parse(to));
-            }
-            query.addCriteria(dateCriteria);
-        }
-        
-        if (q != null && !q.trim().isEmpty()) {
-            String searchTerm = q.trim();
-            query.addCriteria(new Criteria().orOperator(
-                    Criteria.where("name").regex(searchTerm, "i"),
-                    Criteria.where("email").regex(searchTerm, "i"),
-                    Criteria.where("phoneNumber").regex(searchTerm, "i")
-            ));
-        }
-        
-        long total = mongoTemplate.count(query, Lead.class);
-        List<Lead> leads = mongoTemplate.find(query.with(pageable), Lead.class);
-        
-        // Enrich leads with product and source names
-        List<LeadDTO> enrichedLeads = leads.stream().map(lead -> {
-            String productName = lead.getPId() != null ? 
-                productRepository.findByPId(lead.getPId())
-                    .map(Product::getPName)
-                    .orElse("") : "";
+        Page<LeadDTO> leadPage;
+        if ("relevance".equalsIgnoreCase(sort) && q != null && !q.isBlank()) {
+            Pageable pageable = PageRequest.of(page - 1, Math.min(10000, Math.max(1, limit)));
+            Page<LeadSummary> matches = leadQueryService.findByRelevance(filter, q, pageable);
+            leadPage = new PageImpl<>(leadEnrichmentService.toDtos(matches.getContent()), pageable, matches.getTotalElements());
+        } else {
+            Pageable pageable = PageRequest.of(page - 1, Math.min(10000, Math.max(1, limit)),
+                    Sort.by("desc".equalsIgnoreCase(order) ? Sort.Direction.DESC : Sort.Direction.ASC,
+                            "relevance".equalsIgnoreCase(sort) ? "createdAt" : sort));
             
-            String sourceName = lead.getSourceId() != null ? 
-                sourceRepository.findBySourceId(lead.getSourceId())
-                    .map(Source::getSName)
-                    .orElse("") : "";
+            Query query = new Query();
+            filter.forEach(query::addCriteria);
             
-            return LeadDTO.builder()
-                    .leadId(lead.getLeadId())
-                    .name(lead.getName())
-                    .email(lead.getEmail())
-                    .phoneNumber(lead.getPhoneNumber())
-                    .aadharNumber(lead.getAadharNumber())
-                    .pId(lead.getPId())
-                    .productName(productName)
-                    .sourceId(lead.getSourceId())
-                    .sourceName(sourceName)
-                    .createdAt(lead.getCreatedAt())
-                    .income(lead.getIncome())
-                    .creditScore(lead.getCreditScore())
-                    .employmentType(lead.getEmploymentType())
-                    .loanAmount(lead.getLoanAmount())
-                    .converted(lead.getConverted())
-                    .build();
-        }).collect(Collectors.toList());
-        
-        Page<LeadDTO> leadPage = new PageImpl<>(enrichedLeads, pageable, total);
+            long total = mongoTemplate.count(query, Lead.class);
+            List<LeadSummary> leads = leadQueryService.findSummaries(query.with(pageable));
+            
+            // Enrich leads with product and source names (one $in query each for the page)
+            leadPage = new PageImpl<>(leadEnrichmentService.toDtos(leads), pageable, total);
+        }
         
         ApiResponse<Page<LeadDTO>> response = new ApiResponse<>();
         response.setData(leadPage);
@@ -511,6 +259,79 @@ public class LeadController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Keyset pagination: GET /api/leads?mode=cursor[&cursor=...]. Ordered by createdAt then _id; the total is
+     * only computed when count=estimated or count=exact.
+     */
+    @GetMapping(params = "mode=cursor")
+    public ResponseEntity<ApiResponse<CursorPage<LeadDTO>>> getLeadsByCursor(
+            @RequestParam(required = false) String p_id,
+            @RequestParam(required = false) String source_id,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "createdAt") String sort,
+            @RequestParam(defaultValue = "desc") String order,
+            @RequestParam(defaultValue = "none") String count) {
+        
+        if (!"createdAt".equals(sort)) {
+            return ResponseUtil.error("Cursor mode only supports sort=createdAt", HttpStatus.BAD_REQUEST);
+        }
+        
+        CursorPage<LeadDTO> page = leadQueryService.findPage(
+                leadQueryService.buildFilter(p_id, source_id, from, to, q),
+                cursor,
+                Math.min(10000, Math.max(1, limit)),
+                "desc".equalsIgnoreCase(order),
+                LeadQueryService.CountMode.parse(count));
+        return ResponseUtil.success(page, "Leads retrieved successfully");
+    }
+    
+    /**
+     * The k highest-scored leads matching the listing filters (leadScore, then newest first); pass nextCursor
+     * back to get the next k. With p_id the page is read straight from the ranking index.
+     */
+    @GetMapping("/ranked")
+    public ResponseEntity<ApiResponse<CursorPage<LeadDTO>>> getRankedLeads(
+            @RequestParam(required = false) String p_id,
+            @RequestParam(required = false) String source_id,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int k) {
+        CursorPage<LeadDTO> page = leadRankingService.findTopK(p_id, source_id, from, to, q, cursor,
+                Math.min(5000, Math.max(1, k)));
+        return ResponseUtil.success(page, "Ranked leads retrieved successfully");
+    }
+    
+    /**
+     * Streams all leads matching the listing filters as CSV (default) or NDJSON with chunked transfer.
+     * Admin only: the export carries every identifier, Aadhaar numbers included.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportLeads(
+            @RequestParam(required = false) String p_id,
+            @RequestParam(required = false) String source_id,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "csv") String format) {
+        
+        LeadExportService.Format exportFormat = LeadExportService.Format.parse(format);
+        List<Criteria> filter = leadQueryService.buildFilter(p_id, source_id, from, to, q);
+        StreamingResponseBody body = out -> leadExportService.export(filter, exportFormat, out);
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"leads." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<Lead>> getLeadById(@PathVariable String id) {
         return leadRepository.findByLeadId(id)
@@ -528,12 +349,12 @@ public class LeadController {
                     HttpStatus.BAD_REQUEST);
         }
         
-        if (request.getPId() != null && !productRepository.existsByPId(request.getPId().toUpperCase())) {
+        if (request.getPId() != null && !metadataCacheService.productExists(request.getPId().toUpperCase())) {
             return ResponseUtil.error("Product '" + request.getPId() + "' not found",
                     HttpStatus.BAD_REQUEST);
         }
         
-        if (request.getSourceId() != null && !sourceRepository.existsBySourceId(request.getSourceId().toUpperCase())) {
+        if (request.getSourceId() != null && !metadataCacheService.sourceExists(request.getSourceId().toUpperCase())) {
             return ResponseUtil.error("Source '" + request.getSourceId() + "' not found",
                     HttpStatus.BAD_REQUEST);
         }
@@ -592,7 +413,7 @@ public class LeadController {
                     }
                     if (updates.containsKey("p_id") && updates.get("p_id") != null) {
                         String pId = ((String) updates.get("p_id")).toUpperCase();
-                        if (!productRepository.existsByPId(pId)) {
+                        if (!metadataCacheService.productExists(pId)) {
                             throw new RuntimeException("Product '" + updates.get("p_id") + "' not found");
                         }
                         lead.setPId(pId);
@@ -602,7 +423,7 @@ public class LeadController {
                     }
                     if (updates.containsKey("source_id") && updates.get("source_id") != null) {
                         String sourceId = ((String) updates.get("source_id")).toUpperCase();
-                        if (!sourceRepository.existsBySourceId(sourceId)) {
+                        if (!metadataCacheService.sourceExists(sourceId)) {
                             throw new RuntimeException("Source '" + updates.get("source_id") + "' not found");
                         }
                         lead.setSourceId(sourceId);
@@ -647,13 +468,28 @@ public class LeadController {
                         HttpStatus.NOT_FOUND));
     }
     
+    /**
+     * Merge history of a lead from lead_merge_events, newest first. Entries still embedded in the lead
+     * (not yet migrated) are returned separately as legacy_merged_from.
+     */
     @GetMapping("/{id}/history")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> getLeadHistory(@PathVariable String id) {
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getLeadHistory(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "50") int limit) {
         return leadRepository.findByLeadId(id)
                 .map(lead -> {
+                    Page<LeadMergeEvent> events = leadHistoryService.getHistory(lead.getLeadId(), page, limit);
                     Map<String, Object> history = new HashMap<>();
                     history.put("lead_id", lead.getLeadId());
-                    history.put("merged_from", lead.getMergedFrom());
+                    history.put("merged_from", events.getContent());
+                    history.put("page", events.getNumber() + 1);
+                    history.put("limit", events.getSize());
+                    history.put("total", events.getTotalElements());
+                    history.put("has_more", events.hasNext());
+                    if (lead.getMergedFrom() != null && !lead.getMergedFrom().isEmpty()) {
+                        history.put("legacy_merged_from", lead.getMergedFrom());
+                    }
                     history.put("sources_seen", lead.getSourcesSeen());
                     history.put("products_seen", lead.getProductsSeen());
                     history.put("created_at", lead.getCreatedAt());
@@ -663,6 +499,49 @@ public class LeadController {
                         HttpStatus.NOT_FOUND));
     }
     
+    /** Backfills Lead.searchTokens for leads written before search tokens existed (all=true rebuilds every lead). */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/search/reindex")
+    public ResponseEntity<ApiResponse<LeadSearchService.ReindexResult>> reindexLeadSearch(
+            @RequestParam(defaultValue = "false") boolean all,
+            @RequestParam(defaultValue = "1000") int batch_size) {
+        LeadSearchService.ReindexResult result = leadSearchService.reindex(all, Math.min(5000, Math.max(1, batch_size)));
+        return ResponseUtil.success(result, "Lead search index rebuilt");
+    }
+    
+    /** Moves embedded Lead.mergedFrom arrays into lead_merge_events. Idempotent; safe to re-run. */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/history/migrate")
+    public ResponseEntity<ApiResponse<LeadHistoryService.MigrationResult>> migrateLeadHistory(
+            @RequestParam(defaultValue = "500") int batch_size) {
+        LeadHistoryService.MigrationResult result =
+                leadHistoryService.migrateEmbeddedHistory(Math.min(5000, Math.max(1, batch_size)));
+        return ResponseUtil.success(result, "Lead merge history migrated");
+    }
+    
+    /**
+     * Scores leads in bulk (mode: all, unscored or stale). Re-running the same filter resumes an interrupted run
+     * from its checkpoint unless resume=false.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/score/batch")
+    public ResponseEntity<ApiResponse<LeadBatchScoringService.BatchScoringResult>> scoreLeadsBatch(
+            @RequestParam(required = false) String p_id,
+            @RequestParam(required = false) String source_id,
+            @RequestParam(required = false) String updated_since,
+            @RequestParam(defaultValue = "stale") String mode,
+            @RequestParam(defaultValue = "true") boolean resume,
+            @RequestParam(defaultValue = "1000") int batch_size) {
+        LeadBatchScoringService.BatchScoringResult result = leadBatchScoringService.score(
+                p_id != null ? p_id.toUpperCase() : null,
+                source_id != null ? source_id.toUpperCase() : null,
+                updated_since != null ? LocalDateTime.parse(updated_since) : null,
+                LeadBatchScoringService.Mode.parse(mode),
+                resume,
+                Math.min(5000, Math.max(1, batch_size)));
+        return ResponseUtil.success(result, "Leads scored");
+    }
+    
     @PostMapping("/{id}/score")
     public ResponseEntity<ApiResponse<Map<String, Object>>> scoreLead(@PathVariable String id) {
         return leadRepository.findByLeadId(id)
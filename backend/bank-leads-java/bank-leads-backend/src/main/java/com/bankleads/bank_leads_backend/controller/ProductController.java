@@ -5,6 +5,7 @@ import com.bankleads.bank_leads_backend.dto.response.ApiResponse;
 import com.bankleads.bank_leads_backend.model.Product;
 import com.bankleads.bank_leads_backend.repository.ProductRepository;
 import com.bankleads.bank_leads_backend.repository.SourceRepository;
+import com.bankleads.bank_leads_backend.service.MetadataCacheService;
 import com.bankleads.bank_leads_backend.util.ResponseUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -29,6 +30,7 @@ public class ProductController {
     
     private final ProductRepository productRepository;
     private final SourceRepository sourceRepository;
+    private final MetadataCacheService metadataCacheService;
     
     // ✅ NEW - Simple test endpoint
     @GetMapping("/test")
@@ -76,6 +78,7 @@ public class ProductController {
                 .build();
         
         Product saved = productRepository.save(product);
+        metadataCacheService.invalidateProducts();
         return ResponseUtil.success(saved, "Product created successfully",
                 HttpStatus.CREATED);
     }
@@ -135,6 +138,7 @@ public class ProductController {
                     }
                     product.setUpdatedAt(LocalDateTime.now());
                     Product saved = productRepository.save(product);
+                    metadataCacheService.invalidateProducts();
                     return ResponseUtil.success(saved, "Product updated successfully");
                 })
                 .orElse(ResponseUtil.error("Product with p_id '" + id + "' not found",
@@ -155,6 +159,7 @@ public class ProductController {
         return productRepository.findByPId(pId)
                 .map(product -> {
                     productRepository.delete(product);
+                    metadataCacheService.invalidateProducts();
                     return ResponseUtil.success((Object) Map.of("message", "Product deleted successfully"));
                 })
                 .orElse(ResponseUtil.error("Product with p_id '" + id + "' not found",
@@ -5,6 +5,7 @@ import com.bankleads.bank_leads_backend.dto.response.ApiResponse;
 import com.bankleads.bank_leads_backend.model.Source;
 import com.bankleads.bank_leads_backend.repository.LeadRepository;
 import com.bankleads.bank_leads_backend.repository.SourceRepository;
+import com.bankleads.bank_leads_backend.service.MetadataCacheService;
 import com.bankleads.bank_leads_backend.util.ResponseUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -29,6 +30,7 @@ public class SourceController {
     
     private final SourceRepository sourceRepository;
     private final LeadRepository leadRepository;
+    private final MetadataCacheService metadataCacheService;
     
     
     @PreAuthorize("hasRole('ADMIN')")
@@ -67,6 +69,7 @@ public class SourceController {
                 .build();
         
         Source saved = sourceRepository.save(source);
+        metadataCacheService.invalidateSources();
         return ResponseUtil.success(saved, "Source created successfully",
                 HttpStatus.CREATED);
     }
@@ -118,6 +121,7 @@ public class SourceController {
                     }
                     source.setUpdatedAt(LocalDateTime.now());
                     Source saved = sourceRepository.save(source);
+                    metadataCacheService.invalidateSources();
                     return ResponseUtil.success(saved, "Source updated successfully");
                 })
                 .orElse(ResponseUtil.error("Source with s_id '" + id + "' not found",
@@ -138,6 +142,7 @@ public class SourceController {
         return sourceRepository.findBySourceId(sId)
                 .map(source -> {
                     sourceRepository.delete(source);
+                    metadataCacheService.invalidateSources();
                     return ResponseUtil.success((Object) Map.of("message", "Source deleted successfully"));
                 })
                 .orElse(ResponseUtil.error("Source with s_id '" + id + "' not found",
@@ -0,0 +1,28 @@
+package com.bankleads.bank_leads_backend.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. Pass {@code nextCursor} back to fetch the following page;
+ * it is null on the last page. {@code total} is only present when a count was requested, and
+ * {@code totalExact} is false when it is an estimate or a capped lower bound.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPage<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasMore;
+    private String nextCursor;
+    private Long total;
+    private Boolean totalExact;
+}
@@ -30,4 +30,6 @@ public class LeadDTO {
     private Lead.EmploymentType employmentType;
     private Integer loanAmount;
     private Boolean converted;
+    private Double leadScore;
+    private String scoreReason;
 }
@@ -0,0 +1,30 @@
+package com.bankleads.bank_leads_backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Cross-node lease on one lead identifier, held while a lead with that identifier is looked up and written.
+ * The id is the hashed identifier key, so no raw email/phone/aadhar is stored here.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "identifier_leases")
+public class IdentifierLease {
+    @Id
+    private String id;
+
+    // Random id of the lock acquisition holding the lease
+    private String owner;
+
+    // Leases past this time may be taken over; the TTL index removes them eventually
+    @Indexed(name = "identifier_lease_ttl_index", expireAfterSeconds = 0)
+    private Date expiresAt;
+}
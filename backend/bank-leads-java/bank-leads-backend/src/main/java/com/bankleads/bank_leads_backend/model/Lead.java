@@ -24,7 +24,8 @@ import java.util.UUID;
 @Builder
 @Document(collection = "leads")
 @CompoundIndex(name = "lead_identifiers_index", def = "{'email': 1, 'phoneNumber': 1, 'aadharNumber': 1}")
-@CompoundIndex(name = "lead_dashboard_index", def = "{'pId': 1, 'sourceId': 1, 'createdAt': -1}")
+@CompoundIndex(name = "lead_dashboard_cursor_index", def = "{'pId': 1, 'sourceId': 1, 'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "lead_ranking_index", def = "{'pId': 1, 'leadScore': -1, 'createdAt': -1, '_id': -1}")
 public class Lead {
     public enum EmploymentType {
         SALARIED,
@@ -58,7 +59,8 @@ public class Lead {
     @CreatedDate
     private LocalDateTime createdAt;
     
-    // Merge metadata
+    // Legacy embedded merge history. New history goes to lead_merge_events (LeadHistoryService);
+    // existing entries are moved out by the history migration.
     @Builder.Default
     private List<MergeRecord> mergedFrom = new ArrayList<>();
     
@@ -68,9 +70,15 @@ public class Lead {
     @Builder.Default
     private List<String> productsSeen = new ArrayList<>();
     
+    // Lowercase word edge n-grams of name/email and phone digit prefixes (LeadSearchTokenizer)
+    @Indexed(name = "lead_search_tokens_index")
+    private List<String> searchTokens;
+    
     // AI scoring fields (probability 0-1 for ranking)
     private Double leadScore;
     private String scoreReason;
+    // When leadScore was last written; leads updated after this are stale (LeadBatchScoringService)
+    private LocalDateTime scoredAt;
 
     // Optional fields for ML/mock financial modeling
     private Integer income;          // monthly income
@@ -0,0 +1,46 @@
+package com.bankleads.bank_leads_backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of a lead's merge history, stored outside the lead document so re-uploads append a small
+ * document instead of growing and rewriting Lead.mergedFrom.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "lead_merge_events")
+@CompoundIndex(name = "lead_merge_event_history_index", def = "{'leadId': 1, 'timestamp': -1, '_id': -1}")
+public class LeadMergeEvent {
+    public enum Type {
+        CREATED,        // first row that produced the lead
+        MERGED,         // later upload row merged into the lead
+        DEDUPLICATED,   // another lead absorbed by deduplication
+        LEGACY          // moved from the embedded Lead.mergedFrom array
+    }
+
+    @Id
+    private String id;
+
+    // Lead.leadId of the lead this event belongs to
+    private String leadId;
+
+    private Type type;
+    private LocalDateTime timestamp;
+    private String sourceId;
+    private String pId;
+
+    // Lead.leadId of the absorbed lead (DEDUPLICATED only)
+    private String mergedLeadId;
+
+    private Object data; // raw row data
+}
@@ -0,0 +1,46 @@
+package com.bankleads.bank_leads_backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model for lead list, search and export queries: the scalar fields behind LeadDTO, read from the
+ * leads collection with a projection so mergedFrom and the other merge bookkeeping arrays are never loaded.
+ */
+@Data
+@NoArgsConstructor
+public class LeadSummary {
+
+    /** Stored fields to include in the projection (property names; mapped to document keys by the query mapper). */
+    public static final String[] FIELDS = {
+            "id", "leadId", "name", "email", "phoneNumber", "aadharNumber", "pId", "sourceId", "createdAt",
+            "income", "creditScore", "employmentType", "loanAmount", "converted", "leadScore", "scoreReason"
+    };
+
+    @Id
+    private String id;
+
+    @Field("lead_id")
+    private String leadId;
+
+    private String name;
+    private String phoneNumber;
+    private String email;
+    private String aadharNumber;
+    private String sourceId;
+    private String pId;
+    private LocalDateTime createdAt;
+
+    private Integer income;
+    private Integer creditScore;
+    private Lead.EmploymentType employmentType;
+    private Integer loanAmount;
+    private Boolean converted;
+
+    private Double leadScore;
+    private String scoreReason;
+}
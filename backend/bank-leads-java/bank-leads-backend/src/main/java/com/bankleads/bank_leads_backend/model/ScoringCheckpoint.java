@@ -0,0 +1,46 @@
+package com.bankleads.bank_leads_backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one batch scoring run, keyed by its filter. Leads are scored in _id order,
+ * so a run interrupted by a restart resumes after {@code lastLeadId}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "scoring_checkpoints")
+public class ScoringCheckpoint {
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    // "<mode>|<pId>|<sourceId>", with empty parts for unset filters
+    @Id
+    private String id;
+
+    private Status status;
+
+    // Mongo _id of the last lead written by the run
+    private String lastLeadId;
+
+    private long scanned;
+    private long scored;
+    private long failed;
+
+    private String errorMessage;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+}
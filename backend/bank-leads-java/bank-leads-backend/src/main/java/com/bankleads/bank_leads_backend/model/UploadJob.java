@@ -0,0 +1,71 @@
+package com.bankleads.bank_leads_backend.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Background lead upload. Progress counters are updated while the file is processed;
+ * {@code result} holds the same summary the synchronous upload endpoint returns.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@Document(collection = "upload_jobs")
+public class UploadJob {
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    public enum Stage {
+        QUEUED,
+        VALIDATING,
+        UPSERTING,
+        DEDUPLICATING,
+        DONE
+    }
+
+    @Id
+    private String id;
+
+    private String filename;
+    private String pId;
+    private String sourceId;
+
+    private Status status;
+    private Stage stage;
+
+    private int rowsParsed;
+    private int insertedCount;
+    private int mergedCount;
+    private int failedCount;
+
+    private Map<String, Object> result;
+
+    // Set when status is FAILED
+    private String errorMessage;
+    private Object errorDetails;
+
+    // Spooled upload on the accepting server, so a restart can resume or clean up the job
+    @JsonIgnore
+    private String tempFile;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+}
@@ -0,0 +1,12 @@
+package com.bankleads.bank_leads_backend.repository;
+
+import com.bankleads.bank_leads_backend.model.LeadMergeEvent;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LeadMergeEventRepository extends MongoRepository<LeadMergeEvent, String> {
+    Page<LeadMergeEvent> findByLeadId(String leadId, Pageable pageable);
+}
@@ -7,6 +7,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +20,15 @@ public interface LeadRepository extends MongoRepository<Lead, String> {
     List<Lead> findByPhoneNumber(String phoneNumber);
     List<Lead> findByAadharNumber(String aadharNumber);
     
+    // Batched identifier lookups for bulk upserts; merges are written as field updates, so the
+    // embedded merge history is never needed here
+    @Query(value = "{'email': {$in: ?0}}", fields = "{'mergedFrom': 0}")
+    List<Lead> findByEmailIn(Collection<String> emails);
+    @Query(value = "{'phoneNumber': {$in: ?0}}", fields = "{'mergedFrom': 0}")
+    List<Lead> findByPhoneNumberIn(Collection<String> phoneNumbers);
+    @Query(value = "{'aadharNumber': {$in: ?0}}", fields = "{'mergedFrom': 0}")
+    List<Lead> findByAadharNumberIn(Collection<String> aadharNumbers);
+    
     // Explicit Mongo queries to avoid Spring Data deriving property name "PId"
     @Query("{'pId': ?0}")
     Page<Lead> findByPId(String pId, Pageable pageable);
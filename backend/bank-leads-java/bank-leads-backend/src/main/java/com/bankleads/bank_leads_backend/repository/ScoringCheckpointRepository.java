@@ -0,0 +1,9 @@
+package com.bankleads.bank_leads_backend.repository;
+
+import com.bankleads.bank_leads_backend.model.ScoringCheckpoint;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ScoringCheckpointRepository extends MongoRepository<ScoringCheckpoint, String> {
+}
@@ -5,6 +5,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,6 +26,9 @@ public interface SourceRepository extends MongoRepository<Source, String> {
     @Query(value = "{'sId': ?0}", exists = true)
     boolean existsBySourceId(String sourceId);
     
+    @Query("{'sId': {$in: ?0}}")
+    List<Source> findBySIdIn(Collection<String> sIds);
+    
     // Find by product ID
     @Query(value = "{'pId': ?0}", count = true)
     long countByPId(String pId);
@@ -0,0 +1,14 @@
+package com.bankleads.bank_leads_backend.repository;
+
+import com.bankleads.bank_leads_backend.model.UploadJob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UploadJobRepository extends MongoRepository<UploadJob, String> {
+
+    List<UploadJob> findByStatusIn(Collection<UploadJob.Status> statuses);
+}
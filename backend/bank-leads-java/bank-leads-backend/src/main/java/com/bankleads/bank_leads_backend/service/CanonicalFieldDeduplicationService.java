@@ -1,11 +1,9 @@
 package com.bankleads.bank_leads_backend.service;
 
 import com.bankleads.bank_leads_backend.model.CanonicalField;
-import com.bankleads.bank_leads_backend.repository.CanonicalFieldRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -27,7 +25,7 @@ public class CanonicalFieldDeduplicationService {
     private static final Set<String> PHONE_FIELD_NAMES = Set.of("phone_number", "phone", "phonenumber", "mobile", "mobile_number", "contact", "contact_number");
     private static final Set<String> AADHAR_FIELD_NAMES = Set.of("aadhar_number", "aadhar", "aadhaar", "aadhaar_number", "aadhar_no");
 
-    private final CanonicalFieldRepository canonicalFieldRepository;
+    private final MetadataCacheService metadataCacheService;
     private final DeduplicationService deduplicationService;
 
     /**
@@ -35,9 +33,7 @@ public class CanonicalFieldDeduplicationService {
      * Uses field name (normalized) and field type to determine which identifiers to use.
      */
     public DeduplicationService.DeduplicationConfig buildConfigFromCanonicalFields() {
-        List<CanonicalField> activeFields = canonicalFieldRepository
-                .findAll(PageRequest.of(0, 500))
-                .getContent()
+        List<CanonicalField> activeFields = metadataCacheService.getCanonicalFields()
                 .stream()
                 .filter(f -> f.getIsActive() != null && f.getIsActive())
                 .toList();
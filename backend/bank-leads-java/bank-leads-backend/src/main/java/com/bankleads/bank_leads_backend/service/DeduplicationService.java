@@ -1,28 +1,102 @@
 package com.bankleads.bank_leads_backend.service;
 
 import com.bankleads.bank_leads_backend.model.Lead;
+import com.bankleads.bank_leads_backend.model.LeadMergeEvent;
 import com.bankleads.bank_leads_backend.model.Product;
 import com.bankleads.bank_leads_backend.repository.LeadRepository;
 import com.bankleads.bank_leads_backend.repository.ProductRepository;
+import com.bankleads.bank_leads_backend.util.LeadSearchTokenizer;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class DeduplicationService {
 
+    private static final Logger log = LoggerFactory.getLogger(DeduplicationService.class);
     private static final Set<String> EMAIL_NAMES = Set.of("email");
     private static final Set<String> PHONE_NAMES = Set.of("phone_number", "phone");
     private static final Set<String> AADHAR_NAMES = Set.of("aadhar_number", "aadhar");
+    // Candidate leads are fetched by id in batches of this size
+    private static final int LOAD_BATCH_SIZE = 1000;
     
     private final LeadRepository leadRepository;
     private final ProductRepository productRepository;
+    private final MongoTemplate mongoTemplate;
+    private final MetadataCacheService metadataCacheService;
+    private final LeadHistoryService leadHistoryService;
+    private final DuplicateCandidateDetector duplicateCandidateDetector;
+    
+    // Duplicate groups written per bulk update/delete round trip
+    @Value("${app.dedup.merge-batch-size:500}")
+    private int mergeBatchSize;
+    
+    @Value("${app.dedup.product-workers:4}")
+    private int productWorkers;
+    
+    @Value("${app.dedup.product-timeout-seconds:600}")
+    private long productTimeoutSeconds;
+    
+    // Product runs waiting for a worker; further products are rejected and reported as failed
+    @Value("${app.dedup.product-queue-size:100}")
+    private int productQueueSize;
+    
+    private ThreadPoolExecutor productExecutor;
+    
+    // Merges of one product never overlap (manual, all-products and upload runs alike); a run over all leads
+    // excludes every product run. Candidates are read under the lock so they reflect the previous run's deletes.
+    private final ReentrantReadWriteLock allLeadsLock = new ReentrantReadWriteLock();
+    private final Map<String, ReentrantLock> productLocks = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    void startProductExecutor() {
+        int workers = Math.max(1, productWorkers);
+        AtomicInteger threadCount = new AtomicInteger();
+        productExecutor = new ThreadPoolExecutor(workers, workers, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, productQueueSize)),
+                r -> {
+                    Thread t = new Thread(r, "dedup-product-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+    
+    @PreDestroy
+    void stopProductExecutor() {
+        productExecutor.shutdownNow();
+    }
     
     private DeduplicationConfig config = new DeduplicationConfig(true, true, true);
     
@@ -62,141 +136,364 @@ public class DeduplicationService {
         return new DeduplicationConfig(useEmail, usePhone, useAadhar);
     }
     
+    /**
+     * Deduplicates across all leads. Duplicate candidates are found by aggregation and only they are loaded.
+     */
     @Transactional
     public DeduplicationStats executeDeduplication(DeduplicationConfig overrideConfig) {
         DeduplicationConfig activeConfig = overrideConfig != null ? overrideConfig : config;
-        List<Lead> allLeads = leadRepository.findAll();
-        return executeDeduplicationWithLeads(activeConfig, allLeads);
+        return underMergeLock(null, () -> executeDeduplicationWithCandidates(activeConfig,
+                duplicateCandidateDetector.findGroups(null, activeConfig), leadRepository.count(),
+                new MergeProgress(() -> false)));
     }
     
     /**
      * Runs lead deduplication only for leads belonging to the given product (pId),
      * using that product's configured canonical deduplication fields.
+     * Duplicate candidates are found by aggregation and only they are loaded.
      */
     @Transactional
     public DeduplicationStats executeDeduplicationForProduct(String pId) {
+        return deduplicateProduct(pId, new MergeProgress(() -> false));
+    }
+    
+    private DeduplicationStats deduplicateProduct(String pId, MergeProgress progress) {
+        String pIdUpper = pId == null ? null : pId.toUpperCase();
+        Product product = metadataCacheService.findProduct(pIdUpper)
+                .orElseThrow(() -> new IllegalArgumentException("Product not found: " + pId));
+        DeduplicationConfig productConfig = buildConfigFromCanonicalFieldNames(product.getDeduplicationFields());
+        return underMergeLock(pIdUpper, () -> executeDeduplicationWithCandidates(productConfig,
+                duplicateCandidateDetector.findGroups(pIdUpper, productConfig), countProductLeads(pIdUpper), progress));
+    }
+    
+    /**
+     * Dry run of {@link #executeDeduplicationForProduct}: the duplicate groups it would merge, as lead ids,
+     * computed without loading any lead. At most {@code limit} groups are listed; the counts cover all of them.
+     */
+    public DeduplicationPreview previewDeduplicationForProduct(String pId, int limit) {
         String pIdUpper = pId == null ? null : pId.toUpperCase();
-        Product product = productRepository.findByPId(pIdUpper)
+        Product product = metadataCacheService.findProduct(pIdUpper)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found: " + pId));
+        return previewProduct(product, limit);
+    }
+    
+    /**
+     * Dry run of {@link #executeDeduplicationForAllProducts}, keyed by pId.
+     */
+    public Map<String, DeduplicationPreview> previewDeduplicationForAllProducts(int limit) {
+        Map<String, DeduplicationPreview> byProduct = new LinkedHashMap<>();
+        for (Product product : productRepository.findAll()) {
+            byProduct.put(product.getPId(), previewProduct(product, limit));
+        }
+        return byProduct;
+    }
+    
+    private DeduplicationPreview previewProduct(Product product, int limit) {
         DeduplicationConfig productConfig = buildConfigFromCanonicalFieldNames(product.getDeduplicationFields());
-        List<Lead> productLeads = leadRepository.findByPId(pIdUpper);
-        return executeDeduplicationWithLeads(productConfig, productLeads);
+        DuplicateCandidateDetector.CandidateGroups candidates =
+                duplicateCandidateDetector.findGroups(product.getPId(), productConfig);
+        List<List<String>> groups = candidates.getGroups();
+        return new DeduplicationPreview(
+                product.getPId(),
+                productConfig,
+                countProductLeads(product.getPId()),
+                candidates.getGroupCount(),
+                candidates.getDuplicateCount(),
+                groups.subList(0, Math.min(groups.size(), Math.max(0, limit)))
+        );
+    }
+    
+    private long countProductLeads(String pId) {
+        return mongoTemplate.count(new Query(Criteria.where("pId").is(pId)), Lead.class);
     }
     
     /**
      * Runs deduplication across all products: for each product, runs lead deduplication
      * for that product's leads using that product's deduplication fields.
+     * Products share no leads within a run, so they run in parallel on the dedup worker pool
+     * (app.dedup.product-workers, with up to app.dedup.product-queue-size products waiting). Each product is
+     * limited to app.dedup.product-timeout-seconds from submission, queue wait included; a timed-out product
+     * stops before its next merge batch. A product that fails, times out or finds the queue full gets stats
+     * with {@code error} set and the counts committed by then; the others are unaffected.
+     * Results are keyed by pId in product order.
      */
-    @Transactional
     public Map<String, DeduplicationStats> executeDeduplicationForAllProducts() {
-        Map<String, DeduplicationStats> byProduct = new LinkedHashMap<>();
+        Map<String, ProductRun> runs = new LinkedHashMap<>();
         for (Product product : productRepository.findAll()) {
             String pId = product.getPId();
+            CompletableFuture<DeduplicationStats> run = new CompletableFuture<DeduplicationStats>()
+                    .orTimeout(productTimeoutSeconds, TimeUnit.SECONDS);
+            // A run completed by the timeout (or never started) stops at its next batch boundary
+            MergeProgress progress = new MergeProgress(run::isDone);
             try {
-                DeduplicationStats stats = executeDeduplicationForProduct(pId);
-                byProduct.put(pId, stats);
-            } catch (Exception e) {
-                // log and skip; or rethrow
-                byProduct.put(pId, null); // or a stats with error message
+                productExecutor.execute(() -> {
+                    if (run.isDone()) {
+                        return;
+                    }
+                    try {
+                        run.complete(deduplicateProduct(pId, progress));
+                    } catch (Exception e) {
+                        run.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                run.completeExceptionally(new RejectedExecutionException("Deduplication queue is full"));
+            }
+            runs.put(pId, new ProductRun(run, progress));
+        }
+        
+        Map<String, DeduplicationStats> byProduct = new LinkedHashMap<>();
+        for (Map.Entry<String, ProductRun> entry : runs.entrySet()) {
+            String pId = entry.getKey();
+            ProductRun productRun = entry.getValue();
+            try {
+                byProduct.put(pId, productRun.run.join());
+            } catch (CompletionException | CancellationException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                String reason = cause instanceof TimeoutException
+                        ? "Deduplication timed out after " + productTimeoutSeconds + "s"
+                        : cause.getMessage() != null ? cause.getMessage() : "Deduplication failed";
+                DeduplicationStats partial = productRun.progress.snapshot();
+                log.warn("Deduplication for product {} failed after merging {} leads: {}", pId, partial.getMergedCount(), reason);
+                partial.setError(reason);
+                byProduct.put(pId, partial);
             }
         }
         return byProduct;
     }
     
-    private DeduplicationStats executeDeduplicationWithLeads(DeduplicationConfig activeConfig, List<Lead> candidateLeads) {
+    private record ProductRun(CompletableFuture<DeduplicationStats> run, MergeProgress progress) {
+    }
+    
+    /**
+     * Counts of a merge in progress, readable from another thread. {@code cancelled} is checked before each
+     * merge batch; once it returns true no further batch is written.
+     */
+    private static final class MergeProgress {
+        final BooleanSupplier cancelled;
+        volatile long totalLeads;
+        volatile long duplicatesFound;
+        volatile int mergedCount;
+        
+        MergeProgress(BooleanSupplier cancelled) {
+            this.cancelled = cancelled;
+        }
+        
+        DeduplicationStats snapshot() {
+            return new DeduplicationStats(totalLeads, duplicatesFound, mergedCount, 0, new ArrayList<>());
+        }
+    }
+    
+    /**
+     * Deduplicates only around the given leads (Mongo ids, e.g. the leads inserted or merged by an upload batch).
+     * For each product, the touched leads' identifiers are looked up with indexed $in queries within the same
+     * product, repeating until no new leads turn up so transitive matches are still grouped, and only the
+     * resulting groups are merged. Cost scales with the touched leads rather than the collection.
+     * Identifiers are matched exactly (upload values are already normalized). Each product's merge holds the
+     * product's merge lock, so it waits for a running full or incremental deduplication of the same product.
+     * Leads whose product no longer exists are skipped, as in {@link #executeDeduplicationForAllProducts()}.
+     * @return stats per product, totalLeads being the number of leads examined; finalCount is not computed (0)
+     * so per-batch callers can count once at the end
+     */
+    public Map<String, DeduplicationStats> executeIncrementalDeduplication(Collection<String> leadIds) {
+        Map<String, DeduplicationStats> byProduct = new LinkedHashMap<>();
+        if (leadIds == null || leadIds.isEmpty()) {
+            return byProduct;
+        }
+        
+        Map<String, List<Lead>> touchedByProduct = new LinkedHashMap<>();
+        for (Lead lead : leadRepository.findAllById(new HashSet<>(leadIds))) {
+            if (lead.getPId() != null) {
+                touchedByProduct.computeIfAbsent(lead.getPId(), k -> new ArrayList<>()).add(lead);
+            }
+        }
+        
+        for (Map.Entry<String, List<Lead>> entry : touchedByProduct.entrySet()) {
+            String pId = entry.getKey();
+            Optional<Product> product = metadataCacheService.findProduct(pId);
+            if (product.isEmpty()) {
+                continue;
+            }
+            DeduplicationConfig productConfig = buildConfigFromCanonicalFieldNames(product.get().getDeduplicationFields());
+            byProduct.put(pId, underMergeLock(pId, () -> {
+                // Touched leads absorbed by a merge that finished while waiting are gone; start from the survivors
+                List<Lead> seeds = leadRepository.findAllById(entry.getValue().stream().map(Lead::getId).toList());
+                return mergeDuplicateGroups(productConfig, collectCandidates(pId, seeds, productConfig),
+                        new MergeProgress(() -> false));
+            }));
+        }
+        return byProduct;
+    }
+    
+    private <T> T underMergeLock(String pId, Supplier<T> merge) {
+        if (pId == null) {
+            allLeadsLock.writeLock().lock();
+            try {
+                return merge.get();
+            } finally {
+                allLeadsLock.writeLock().unlock();
+            }
+        }
+        ReentrantLock productLock = productLocks.computeIfAbsent(pId, k -> new ReentrantLock());
+        allLeadsLock.readLock().lock();
+        try {
+            productLock.lock();
+            try {
+                return merge.get();
+            } finally {
+                productLock.unlock();
+            }
+        } finally {
+            allLeadsLock.readLock().unlock();
+        }
+    }
+    
+    private List<Lead> collectCandidates(String pId, List<Lead> seeds, DeduplicationConfig config) {
+        Map<String, Lead> candidates = new LinkedHashMap<>();
+        Set<String> seenEmails = new HashSet<>();
+        Set<String> seenPhones = new HashSet<>();
+        Set<String> seenAadhars = new HashSet<>();
+        List<Lead> frontier = seeds;
+        
+        while (!frontier.isEmpty()) {
+            Set<String> emails = new HashSet<>();
+            Set<String> phones = new HashSet<>();
+            Set<String> aadhars = new HashSet<>();
+            for (Lead lead : frontier) {
+                candidates.putIfAbsent(lead.getId(), lead);
+                collectNew(config.isUseEmail(), lead.getEmail(), seenEmails, emails);
+                collectNew(config.isUsePhone(), lead.getPhoneNumber(), seenPhones, phones);
+                collectNew(config.isUseAadhar(), lead.getAadharNumber(), seenAadhars, aadhars);
+            }
+            
+            List<Criteria> matches = new ArrayList<>();
+            if (!emails.isEmpty()) matches.add(Criteria.where("email").in(emails));
+            if (!phones.isEmpty()) matches.add(Criteria.where("phoneNumber").in(phones));
+            if (!aadhars.isEmpty()) matches.add(Criteria.where("aadharNumber").in(aadhars));
+            if (matches.isEmpty()) {
+                break;
+            }
+            
+            Query query = new Query(Criteria.where("pId").is(pId).orOperator(matches.toArray(new Criteria[0])));
+            frontier = mongoTemplate.find(query, Lead.class).stream()
+                    .filter(lead -> !candidates.containsKey(lead.getId()))
+                    .collect(Collectors.toList());
+        }
+        return new ArrayList<>(candidates.values());
+    }
+    
+    private static void collectNew(boolean enabled, String value, Set<String> seen, Set<String> target) {
+        if (enabled && value != null && !value.isEmpty() && seen.add(value)) {
+            target.add(value);
+        }
+    }
+    
+    private DeduplicationStats executeDeduplicationWithCandidates(DeduplicationConfig activeConfig,
+                                                                  DuplicateCandidateDetector.CandidateGroups candidates,
+                                                                  long totalLeads,
+                                                                  MergeProgress progress) {
+        progress.totalLeads = totalLeads;
+        List<Lead> candidateLeads = duplicateCandidateDetector.loadLeads(candidates.leadIds(), LOAD_BATCH_SIZE);
+        DeduplicationStats stats = mergeDuplicateGroups(activeConfig, candidateLeads, progress);
+        stats.setTotalLeads(totalLeads);
+        // Every merged lead was deleted; no recount needed
+        stats.setFinalCount(totalLeads - stats.getMergedCount());
+        return stats;
+    }
+    
+    private DeduplicationStats mergeDuplicateGroups(DeduplicationConfig activeConfig, List<Lead> candidateLeads,
+                                                    MergeProgress progress) {
         long totalLeads = candidateLeads.size();
         List<List<Lead>> duplicateGroups = findDuplicateGroups(activeConfig, candidateLeads);
+        progress.duplicatesFound = duplicateGroups.stream().mapToInt(g -> g.size() - 1).sum();
+        List<GroupMerge> merges = new ArrayList<>(duplicateGroups.size());
+        for (List<Lead> group : duplicateGroups) {
+            merges.add(planMerge(group));
+        }
+        commitMerges(merges, progress);
+        
         List<MergeDetail> mergeDetails = new ArrayList<>();
+        List<MergeFailure> failures = new ArrayList<>();
         int mergedCount = 0;
-        for (List<Lead> group : duplicateGroups) {
-            MergeResult result = mergeLeads(group);
+        for (GroupMerge merge : merges) {
+            if (merge.error != null) {
+                failures.add(new MergeFailure(merge.kept.getLeadId(), merge.mergedLeadIds, merge.error));
+                continue;
+            }
             mergeDetails.add(new MergeDetail(
-                    result.getKeptLeadId(),
-                    result.getMergedLeadIds(),
-                    group.get(0).getEmail(),
-                    group.get(0).getPhoneNumber(),
-                    group.get(0).getAadharNumber()
+                    merge.kept.getLeadId(),
+                    merge.mergedLeadIds,
+                    merge.kept.getEmail(),
+                    merge.kept.getPhoneNumber(),
+                    merge.kept.getAadharNumber()
             ));
-            mergedCount += result.getMergedLeadIds().size();
+            mergedCount += merge.mergedLeadIds.size();
         }
-        long finalCount = leadRepository.count();
-        return new DeduplicationStats(
+        if (!failures.isEmpty()) {
+            log.warn("Deduplication: {} of {} duplicate groups failed to merge", failures.size(), merges.size());
+        }
+        DeduplicationStats stats = new DeduplicationStats(
                 totalLeads,
-                duplicateGroups.stream().mapToInt(g -> g.size() - 1).sum(),
+                progress.duplicatesFound,
                 mergedCount,
-                finalCount,
+                0,
                 mergeDetails
         );
+        stats.setFailedGroups(failures);
+        return stats;
     }
     
     private List<List<Lead>> findDuplicateGroups(DeduplicationConfig config, List<Lead> candidateLeads) {
-        List<List<Lead>> duplicateGroups = new ArrayList<>();
-        Set<String> processed = new HashSet<>();
-        
-        for (Lead lead : candidateLeads) {
-            if (processed.contains(lead.getLeadId())) {
-                continue;
-            }
-            
-            boolean hasEmail = config.isUseEmail() && lead.getEmail() != null && !lead.getEmail().isEmpty();
-            boolean hasPhone = config.isUsePhone() && lead.getPhoneNumber() != null && !lead.getPhoneNumber().isEmpty();
-            boolean hasAadhar = config.isUseAadhar() && lead.getAadharNumber() != null && !lead.getAadharNumber().isEmpty();
-            if (!hasEmail && !hasPhone && !hasAadhar) {
-                continue;
-            }
-            
-            List<Lead> duplicates = candidateLeads.stream()
-                    .filter(other -> !other.getLeadId().equals(lead.getLeadId()))
-                    .filter(other -> matchesForDeduplication(lead, other, config))
-                    .collect(Collectors.toList());
-            
-            if (!duplicates.isEmpty()) {
-                List<Lead> group = new ArrayList<>();
-                group.add(lead);
-                group.addAll(duplicates);
-                group.sort(Comparator.comparing(Lead::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())));
-                duplicateGroups.add(group);
-                group.forEach(l -> processed.add(l.getLeadId()));
-            }
-        }
-        
-        return duplicateGroups;
+        return DuplicateGroupFinder.findGroups(candidateLeads, config);
     }
     
-    private boolean matchesForDeduplication(Lead lead, Lead other, DeduplicationConfig config) {
-        if (config.isUseEmail() && lead.getEmail() != null && lead.getEmail().equals(other.getEmail())) {
-            return true;
-        }
-        if (config.isUsePhone() && lead.getPhoneNumber() != null && lead.getPhoneNumber().equals(other.getPhoneNumber())) {
-            return true;
-        }
-        if (config.isUseAadhar() && lead.getAadharNumber() != null && lead.getAadharNumber().equals(other.getAadharNumber())) {
-            return true;
+    /**
+     * One duplicate group ready to commit: the filled fields of the kept (oldest) lead, the leads it absorbs
+     * and their history events. {@code error} is set when the group could not be written.
+     */
+    private static class GroupMerge {
+        final Lead kept;
+        final List<Lead> absorbed;
+        final List<String> mergedLeadIds;
+        final Update update = new Update();
+        final List<LeadMergeEvent> events = new ArrayList<>();
+        String error;
+        
+        GroupMerge(Lead kept, List<Lead> absorbed) {
+            this.kept = kept;
+            this.absorbed = absorbed;
+            this.mergedLeadIds = absorbed.stream().map(Lead::getLeadId).collect(Collectors.toList());
         }
-        return false;
     }
     
-    private MergeResult mergeLeads(List<Lead> group) {
+    private GroupMerge planMerge(List<Lead> group) {
         if (group.size() < 2) {
             throw new IllegalArgumentException("Group must have at least 2 leads to merge");
         }
         
         Lead keptLead = group.get(0); // Oldest lead
-        List<Lead> toMerge = group.subList(1, group.size());
+        GroupMerge merge = new GroupMerge(keptLead, new ArrayList<>(group.subList(1, group.size())));
+        Set<String> changed = new LinkedHashSet<>();
+        Set<String> sourcesAdded = new LinkedHashSet<>();
+        Set<String> productsAdded = new LinkedHashSet<>();
         
-        for (Lead lead : toMerge) {
+        for (Lead lead : merge.absorbed) {
             // Fill missing fields
             if ((keptLead.getName() == null || keptLead.getName().isEmpty()) && lead.getName() != null) {
                 keptLead.setName(lead.getName());
+                changed.add("name");
             }
             if ((keptLead.getPhoneNumber() == null || keptLead.getPhoneNumber().isEmpty()) && lead.getPhoneNumber() != null) {
                 keptLead.setPhoneNumber(lead.getPhoneNumber());
+                changed.add("phoneNumber");
             }
             if ((keptLead.getEmail() == null || keptLead.getEmail().isEmpty()) && lead.getEmail() != null) {
                 keptLead.setEmail(lead.getEmail());
+                changed.add("email");
             }
             if ((keptLead.getAadharNumber() == null || keptLead.getAadharNumber().isEmpty()) && lead.getAadharNumber() != null) {
                 keptLead.setAadharNumber(lead.getAadharNumber());
+                changed.add("aadharNumber");
             }
             
             // Merge sources_seen
@@ -204,6 +501,7 @@ public class DeduplicationService {
                 for (String sourceId : lead.getSourcesSeen()) {
                     if (!keptLead.getSourcesSeen().contains(sourceId)) {
                         keptLead.getSourcesSeen().add(sourceId);
+                        sourcesAdded.add(sourceId);
                     }
                 }
             }
@@ -213,6 +511,7 @@ public class DeduplicationService {
                 for (String productId : lead.getProductsSeen()) {
                     if (!keptLead.getProductsSeen().contains(productId)) {
                         keptLead.getProductsSeen().add(productId);
+                        productsAdded.add(productId);
                     }
                 }
             }
@@ -220,39 +519,160 @@ public class DeduplicationService {
             // Update source_id and p_id if kept lead doesn't have them
             if ((keptLead.getSourceId() == null || keptLead.getSourceId().isEmpty()) && lead.getSourceId() != null) {
                 keptLead.setSourceId(lead.getSourceId());
+                changed.add("sourceId");
             }
             if ((keptLead.getPId() == null || keptLead.getPId().isEmpty()) && lead.getPId() != null) {
                 keptLead.setPId(lead.getPId());
+                changed.add("pId");
             }
             
-            // Add to merged_from array
-            Lead.MergeRecord mergeRecord = Lead.MergeRecord.builder()
-                    .timestamp(LocalDateTime.now())
-                    .sourceId(lead.getSourceId())
-                    .pId(lead.getPId())
-                    .data(null)
-                    .build();
-            keptLead.getMergedFrom().add(mergeRecord);
+            // Record the merge in the kept lead's history; legacy embedded entries of the absorbed lead move over too
+            LeadMergeEvent event = LeadHistoryService.event(LeadMergeEvent.Type.DEDUPLICATED,
+                    keptLead.getLeadId(), lead.getSourceId(), lead.getPId(), null);
+            event.setMergedLeadId(lead.getLeadId());
+            merge.events.add(event);
+            merge.events.addAll(LeadHistoryService.fromEmbedded(keptLead.getLeadId(), lead.getId(), lead.getMergedFrom()));
         }
         
-        leadRepository.save(keptLead);
-        
-        List<String> mergedLeadIds = toMerge.stream()
-                .map(Lead::getLeadId)
-                .collect(Collectors.toList());
-        
-        leadRepository.deleteAll(toMerge);
-        
-        return new MergeResult(keptLead.getLeadId(), mergedLeadIds);
+        // Only the filled fields are written, as for upload merges
+        for (String field : changed) {
+            switch (field) {
+                case "name" -> merge.update.set(field, keptLead.getName());
+                case "phoneNumber" -> merge.update.set(field, keptLead.getPhoneNumber());
+                case "email" -> merge.update.set(field, keptLead.getEmail());
+                case "aadharNumber" -> merge.update.set(field, keptLead.getAadharNumber());
+                case "sourceId" -> merge.update.set(field, keptLead.getSourceId());
+                default -> merge.update.set(field, keptLead.getPId());
+            }
+        }
+        if (!sourcesAdded.isEmpty()) {
+            merge.update.addToSet("sourcesSeen").each(sourcesAdded.toArray());
+        }
+        if (!productsAdded.isEmpty()) {
+            merge.update.addToSet("productsSeen").each(productsAdded.toArray());
+        }
+        List<String> searchTokens = LeadSearchTokenizer.tokens(changed.contains("name") ? keptLead.getName() : null,
+                changed.contains("email") ? keptLead.getEmail() : null,
+                changed.contains("phoneNumber") ? keptLead.getPhoneNumber() : null);
+        if (!searchTokens.isEmpty()) {
+            merge.update.addToSet("searchTokens").each(searchTokens.toArray());
+        }
+        merge.update.set("updatedAt", LocalDateTime.now());
+        return merge;
+    }
+    
+    /**
+     * Writes planned merges in batches of app.dedup.merge-batch-size groups: one bulk update of the kept leads,
+     * then one bulk delete of the absorbed leads of the groups whose update succeeded, then their history.
+     * A failed write marks only its own group; the absorbed leads of a group are never deleted without its
+     * kept lead having been updated (an update that matched no document, because the kept lead was deleted
+     * meanwhile, fails the group). Once the run is cancelled the remaining groups are failed unwritten.
+     */
+    private void commitMerges(List<GroupMerge> merges, MergeProgress progress) {
+        int batchSize = Math.max(1, mergeBatchSize);
+        for (int from = 0; from < merges.size(); from += batchSize) {
+            if (progress.cancelled.getAsBoolean()) {
+                List<GroupMerge> skipped = merges.subList(from, merges.size());
+                log.warn("Deduplication stopped: {} of {} duplicate groups left unmerged", skipped.size(), merges.size());
+                for (GroupMerge merge : skipped) {
+                    merge.error = "Deduplication was stopped before this group was merged";
+                }
+                return;
+            }
+            List<GroupMerge> batch = merges.subList(from, Math.min(merges.size(), from + batchSize));
+            
+            BulkOperations updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Lead.class);
+            for (GroupMerge merge : batch) {
+                updates.updateOne(Query.query(Criteria.where("_id").is(merge.kept.getId())), merge.update);
+            }
+            int matched = executeForGroups(updates, batch);
+            
+            List<GroupMerge> updated = batch.stream().filter(m -> m.error == null).collect(Collectors.toList());
+            if (matched < updated.size()) {
+                failMissingKeptLeads(updated);
+                updated = updated.stream().filter(m -> m.error == null).collect(Collectors.toList());
+            }
+            if (updated.isEmpty()) {
+                continue;
+            }
+            BulkOperations deletes = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Lead.class);
+            for (GroupMerge merge : updated) {
+                List<String> ids = merge.absorbed.stream().map(Lead::getId).collect(Collectors.toList());
+                deletes.remove(Query.query(Criteria.where("_id").in(ids)));
+            }
+            executeForGroups(deletes, updated);
+            
+            Map<String, List<String>> reassignments = new LinkedHashMap<>();
+            List<LeadMergeEvent> events = new ArrayList<>();
+            int merged = 0;
+            for (GroupMerge merge : updated) {
+                if (merge.error != null) {
+                    continue;
+                }
+                merged += merge.mergedLeadIds.size();
+                reassignments.put(merge.kept.getLeadId(),
+                        merge.mergedLeadIds.stream().filter(Objects::nonNull).collect(Collectors.toList()));
+                events.addAll(merge.events);
+            }
+            leadHistoryService.reassignAll(reassignments);
+            leadHistoryService.append(events);
+            progress.mergedCount += merged;
+        }
+    }
+    
+    /**
+     * The bulk result only counts matches, so when some kept-lead updates matched nothing, look up which kept
+     * leads are gone and fail their groups.
+     */
+    private void failMissingKeptLeads(List<GroupMerge> updated) {
+        Query query = Query.query(Criteria.where("_id").in(updated.stream().map(m -> m.kept.getId()).toList()));
+        query.fields().include("id");
+        Set<String> existing = mongoTemplate.find(query, Lead.class).stream()
+                .map(Lead::getId)
+                .collect(Collectors.toSet());
+        int missing = 0;
+        for (GroupMerge merge : updated) {
+            if (!existing.contains(merge.kept.getId())) {
+                merge.error = "Lead " + merge.kept.getLeadId() + " was removed before its duplicates could be merged into it";
+                missing++;
+            }
+        }
+        log.warn("Deduplication: {} of {} kept leads no longer exist; their groups are left unmerged", missing, updated.size());
+    }
+    
+    // Runs one bulk write whose i-th operation belongs to groups.get(i), recording failures on the groups.
+    // Returns the number of documents the write matched.
+    private static int executeForGroups(BulkOperations bulkOps, List<GroupMerge> groups) {
+        try {
+            return bulkOps.execute().getMatchedCount();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                groups.get(error.getIndex()).error = error.getMessage();
+            }
+            return e.getResult().getMatchedCount();
+        } catch (Exception e) {
+            String reason = e.getMessage() != null ? e.getMessage() : "Merge write failed";
+            log.error("Deduplication merge batch of {} groups failed: {}", groups.size(), reason, e);
+            for (GroupMerge merge : groups) {
+                merge.error = reason;
+            }
+            return 0;
+        }
     }
     
     public DeduplicationStatsInfo getDeduplicationStats() {
         long totalLeads = leadRepository.count();
         
-        // Simplified: count leads with duplicate identifiers
-        long potentialDuplicates = 0; // Would need aggregation pipeline for accurate count
+        Map<String, Long> byProduct = new LinkedHashMap<>();
+        long potentialDuplicates = 0;
+        for (Product product : productRepository.findAll()) {
+            DeduplicationConfig productConfig = buildConfigFromCanonicalFieldNames(product.getDeduplicationFields());
+            long duplicates = duplicateCandidateDetector.findGroups(product.getPId(), productConfig).getDuplicateCount();
+            byProduct.put(product.getPId(), duplicates);
+            potentialDuplicates += duplicates;
+        }
         
-        return new DeduplicationStatsInfo(totalLeads, potentialDuplicates, getDeduplicationConfig());
+        return new DeduplicationStatsInfo(totalLeads, potentialDuplicates, byProduct, getDeduplicationConfig());
     }
     
     @Data
@@ -275,6 +695,11 @@ public class DeduplicationService {
         private int mergedCount;
         private long finalCount;
         private List<MergeDetail> mergeDetails;
+        // Groups whose merge could not be written; their leads are left as they were
+        private List<MergeFailure> failedGroups = new ArrayList<>();
+        // Set when the product's run failed, timed out or was rejected (executeDeduplicationForAllProducts);
+        // the counts then cover the merge batches committed before it was reported
+        private String error;
         
         public DeduplicationStats(long totalLeads, long duplicatesFound, int mergedCount, long finalCount, List<MergeDetail> mergeDetails) {
             this.totalLeads = totalLeads;
@@ -297,9 +722,10 @@ public class DeduplicationService {
     
     @Data
     @lombok.AllArgsConstructor
-    public static class MergeResult {
+    public static class MergeFailure {
         private String keptLeadId;
         private List<String> mergedLeadIds;
+        private String error;
     }
     
     @Data
@@ -307,6 +733,18 @@ public class DeduplicationService {
     public static class DeduplicationStatsInfo {
         private long totalLeads;
         private long potentialDuplicates;
+        private Map<String, Long> potentialDuplicatesByProduct;
         private DeduplicationConfig config;
     }
+    
+    @Data
+    @lombok.AllArgsConstructor
+    public static class DeduplicationPreview {
+        private String pId;
+        private DeduplicationConfig config;
+        private long totalLeads;
+        private int groupCount;
+        private long duplicatesFound;
+        private List<List<String>> groups; // Mongo ids per group, oldest lead kept on execute
+    }
 }
@@ -0,0 +1,149 @@
+package com.bankleads.bank_leads_backend.service;
+
+import com.bankleads.bank_leads_backend.model.Lead;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Finds duplicate lead candidates inside Mongo: one $group per enabled identifier returns only the ids of
+ * leads sharing a value, and the id lists are joined transitively here. Lead documents never leave the
+ * server, so callers fetch just the leads that need merging.
+ * Keys match {@link DuplicateGroupFinder}: emails are trimmed and lower-cased, phone and aadhar trimmed.
+ */
+@Service
+@RequiredArgsConstructor
+public class DuplicateCandidateDetector {
+
+    private static final String LEADS_COLLECTION = "leads";
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Mongo ids of leads that share an identifier, one list per transitive group (each with 2+ leads),
+     * in the order the groups were first seen.
+     */
+    public static class CandidateGroups {
+        private final List<List<String>> groups;
+
+        CandidateGroups(List<List<String>> groups) {
+            this.groups = groups;
+        }
+
+        public List<List<String>> getGroups() { return groups; }
+
+        public int getGroupCount() { return groups.size(); }
+
+        /** Leads a merge run would remove (every member except the kept one). */
+        public long getDuplicateCount() {
+            return groups.stream().mapToLong(group -> group.size() - 1).sum();
+        }
+
+        public Set<String> leadIds() {
+            Set<String> ids = new LinkedHashSet<>();
+            groups.forEach(ids::addAll);
+            return ids;
+        }
+    }
+
+    /**
+     * @param pId product to search within (upper-cased), or null to group across all leads
+     */
+    public CandidateGroups findGroups(String pId, DeduplicationService.DeduplicationConfig config) {
+        List<List<String>> sharedValues = new ArrayList<>();
+        if (config.isUseEmail()) {
+            sharedValues.addAll(idsSharingValue(pId, "email", true));
+        }
+        if (config.isUsePhone()) {
+            sharedValues.addAll(idsSharingValue(pId, "phoneNumber", false));
+        }
+        if (config.isUseAadhar()) {
+            sharedValues.addAll(idsSharingValue(pId, "aadharNumber", false));
+        }
+        if (sharedValues.isEmpty()) {
+            return new CandidateGroups(Collections.emptyList());
+        }
+
+        Map<String, Integer> positions = new LinkedHashMap<>();
+        for (List<String> ids : sharedValues) {
+            for (String id : ids) {
+                positions.putIfAbsent(id, positions.size());
+            }
+        }
+        DuplicateGroupFinder.UnionFind unionFind = new DuplicateGroupFinder.UnionFind(positions.size());
+        for (List<String> ids : sharedValues) {
+            int first = positions.get(ids.get(0));
+            for (int i = 1; i < ids.size(); i++) {
+                unionFind.union(first, positions.get(ids.get(i)));
+            }
+        }
+
+        Map<Integer, List<String>> byRoot = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : positions.entrySet()) {
+            byRoot.computeIfAbsent(unionFind.find(entry.getValue()), k -> new ArrayList<>()).add(entry.getKey());
+        }
+        return new CandidateGroups(new ArrayList<>(byRoot.values()));
+    }
+
+    /**
+     * Loads the given leads in batches of {@code batchSize} ids.
+     */
+    public List<Lead> loadLeads(Set<String> leadIds, int batchSize) {
+        List<String> ids = new ArrayList<>(leadIds);
+        List<Lead> leads = new ArrayList<>(ids.size());
+        int size = Math.max(1, batchSize);
+        for (int from = 0; from < ids.size(); from += size) {
+            List<String> batch = ids.subList(from, Math.min(ids.size(), from + size));
+            leads.addAll(mongoTemplate.find(Query.query(Criteria.where("_id").in(batch)), Lead.class));
+        }
+        return leads;
+    }
+
+    // Ids of leads sharing each value of one identifier field; values held by a single lead are dropped in Mongo
+    private List<List<String>> idsSharingValue(String pId, String field, boolean lowerCase) {
+        Document match = new Document(field, new Document("$type", "string").append("$ne", ""));
+        if (pId != null) {
+            match.append("pId", pId);
+        }
+        Object key = new Document("$trim", new Document("input", "$" + field));
+        if (lowerCase) {
+            key = new Document("$toLower", key);
+        }
+        Document group = new Document("_id", key).append("ids", new Document("$push", "$_id"));
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                context -> new Document("$match", match),
+                context -> new Document("$group", group),
+                context -> new Document("$match", new Document("_id", new Document("$ne", ""))
+                        .append("ids.1", new Document("$exists", true))),
+                context -> new Document("$project", new Document("_id", 0).append("ids", 1)))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        List<List<String>> result = new ArrayList<>();
+        try (Stream<Document> groups = mongoTemplate.aggregateStream(aggregation, LEADS_COLLECTION, Document.class)) {
+            groups.forEach(doc -> {
+                List<?> ids = doc.get("ids", List.class);
+                List<String> hexIds = new ArrayList<>(ids.size());
+                for (Object id : ids) {
+                    hexIds.add(String.valueOf(id));
+                }
+                result.add(hexIds);
+            });
+        }
+        return result;
+    }
+}
@@ -0,0 +1,133 @@
+package com.bankleads.bank_leads_backend.service;
+
+import com.bankleads.bank_leads_backend.model.Lead;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Groups leads that share an enabled identifier (email, phone, aadhar).
+ * Builds one hash index per identifier and joins matching leads with a union-find,
+ * so grouping is near-linear in the number of leads and matches are transitive
+ * (A~B by email and B~C by phone puts A, B and C in one group).
+ */
+public final class DuplicateGroupFinder {
+
+    private DuplicateGroupFinder() {
+    }
+
+    /**
+     * Returns groups with more than one lead. Each group is sorted oldest first (createdAt, nulls last),
+     * and groups are ordered by the position of their first member in the candidate list.
+     */
+    public static List<List<Lead>> findGroups(List<Lead> candidateLeads, DeduplicationService.DeduplicationConfig config) {
+        int n = candidateLeads.size();
+        if (n < 2) {
+            return new ArrayList<>();
+        }
+
+        UnionFind unionFind = new UnionFind(n);
+        Map<String, Integer> emailIndex = new HashMap<>();
+        Map<String, Integer> phoneIndex = new HashMap<>();
+        Map<String, Integer> aadharIndex = new HashMap<>();
+
+        for (int i = 0; i < n; i++) {
+            Lead lead = candidateLeads.get(i);
+            if (config.isUseEmail()) {
+                join(unionFind, emailIndex, emailKey(lead.getEmail()), i);
+            }
+            if (config.isUsePhone()) {
+                join(unionFind, phoneIndex, identifierKey(lead.getPhoneNumber()), i);
+            }
+            if (config.isUseAadhar()) {
+                join(unionFind, aadharIndex, identifierKey(lead.getAadharNumber()), i);
+            }
+        }
+
+        Map<Integer, List<Lead>> byRoot = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            if (unionFind.size(i) < 2) {
+                continue;
+            }
+            byRoot.computeIfAbsent(unionFind.find(i), k -> new ArrayList<>()).add(candidateLeads.get(i));
+        }
+
+        List<List<Lead>> groups = new ArrayList<>(byRoot.size());
+        for (List<Lead> group : byRoot.values()) {
+            group.sort(Comparator.comparing(Lead::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())));
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    private static void join(UnionFind unionFind, Map<String, Integer> index, String key, int position) {
+        if (key == null) {
+            return;
+        }
+        Integer first = index.putIfAbsent(key, position);
+        if (first != null) {
+            unionFind.union(first, position);
+        }
+    }
+
+    static String emailKey(String email) {
+        if (email == null) return null;
+        String key = email.trim().toLowerCase(Locale.ROOT);
+        return key.isEmpty() ? null : key;
+    }
+
+    static String identifierKey(String value) {
+        if (value == null) return null;
+        String key = value.trim();
+        return key.isEmpty() ? null : key;
+    }
+
+    /**
+     * Disjoint-set over array positions with union by size and path halving.
+     */
+    static final class UnionFind {
+        private final int[] parent;
+        private final int[] size;
+
+        UnionFind(int n) {
+            parent = new int[n];
+            size = new int[n];
+            for (int i = 0; i < n; i++) {
+                parent[i] = i;
+                size[i] = 1;
+            }
+        }
+
+        int find(int x) {
+            while (parent[x] != x) {
+                parent[x] = parent[parent[x]];
+                x = parent[x];
+            }
+            return x;
+        }
+
+        void union(int a, int b) {
+            int rootA = find(a);
+            int rootB = find(b);
+            if (rootA == rootB) {
+                return;
+            }
+            if (size[rootA] < size[rootB]) {
+                int tmp = rootA;
+                rootA = rootB;
+                rootB = tmp;
+            }
+            parent[rootB] = rootA;
+            size[rootA] += size[rootB];
+        }
+
+        int size(int x) {
+            return size[find(x)];
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.bankleads.bank_leads_backend.service;
+
+import com.bankleads.bank_leads_backend.model.IdentifierLease;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes lead lookups and writes that share a normalized identifier (email, phone or aadhar), so two
+ * uploads carrying the same identifier cannot both miss the lookup and insert two leads.
+ * <p>
+ * Locks are held per hashed identifier key and acquired in key order, which rules out deadlocks between
+ * callers locking several identifiers. Lock entries exist only while held or awaited. With
+ * {@code app.locks.identifiers.distributed=true} a Mongo lease per key (identifier_leases) is taken as well,
+ * for deployments with several nodes writing leads.
+ */
+@Service
+@RequiredArgsConstructor
+public class IdentifierLockManager {
+
+    private static final Logger log = LoggerFactory.getLogger(IdentifierLockManager.class);
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${app.locks.identifiers.wait-ms:30000}")
+    private long waitMs;
+
+    @Value("${app.locks.identifiers.distributed:false}")
+    private boolean distributed;
+
+    @Value("${app.locks.identifiers.lease-ms:60000}")
+    private long leaseMs;
+
+    private final Map<String, KeyLock> locks = new ConcurrentHashMap<>();
+
+    /**
+     * Locks held by one caller; closing releases them.
+     */
+    public final class Locks implements AutoCloseable {
+        private final List<String> keys;
+        private final String owner;
+        private int held;
+        private boolean leased;
+
+        private Locks(List<String> keys) {
+            this.keys = keys;
+            this.owner = UUID.randomUUID().toString();
+        }
+
+        @Override
+        public void close() {
+            if (leased) {
+                releaseLeases(keys, owner);
+                leased = false;
+            }
+            for (int i = held - 1; i >= 0; i--) {
+                unlock(keys.get(i));
+            }
+            held = 0;
+        }
+    }
+
+    private static final class KeyLock {
+        final ReentrantLock lock = new ReentrantLock();
+        int users; // guarded by the map entry (compute)
+    }
+
+    /**
+     * Hashed lock keys for the identifiers present in a normalized row, in email, phone, aadhar order.
+     */
+    public static List<String> keysFor(Map<String, String> normalized) {
+        List<String> keys = new ArrayList<>(3);
+        addKey(keys, "email:", normalized.get("email"));
+        addKey(keys, "phone:", normalized.get("phone_number"));
+        addKey(keys, "aadhar:", normalized.get("aadhar_number"));
+        return keys;
+    }
+
+    private static void addKey(List<String> keys, String prefix, String value) {
+        if (value != null && !value.isEmpty()) {
+            keys.add(hash(prefix + value));
+        }
+    }
+
+    private static String hash(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(bytes, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Locks every given key (as returned by {@link #keysFor}), waiting up to app.locks.identifiers.wait-ms.
+     * @throws IllegalStateException when the locks cannot be acquired in time
+     */
+    public Locks lock(Collection<String> keys) {
+        Locks acquired = new Locks(new ArrayList<>(new TreeSet<>(keys)));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMs);
+        try {
+            for (String key : acquired.keys) {
+                if (!tryLock(key, deadline)) {
+                    throw new IllegalStateException("Timed out waiting for identifier locks");
+                }
+                acquired.held++;
+            }
+            if (distributed && !acquired.keys.isEmpty()) {
+                acquireLeases(acquired.keys, acquired.owner, deadline);
+                acquired.leased = true;
+            }
+            return acquired;
+        } catch (RuntimeException e) {
+            acquired.close();
+            throw e;
+        }
+    }
+
+    private boolean tryLock(String key, long deadline) {
+        KeyLock keyLock = locks.compute(key, (k, existing) -> {
+            KeyLock entry = existing != null ? existing : new KeyLock();
+            entry.users++;
+            return entry;
+        });
+        boolean acquired = false;
+        try {
+            acquired = keyLock.lock.tryLock(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!acquired) {
+                release(key);
+            }
+        }
+        return acquired;
+    }
+
+    private void unlock(String key) {
+        KeyLock keyLock = locks.get(key);
+        if (keyLock != null) {
+            keyLock.lock.unlock();
+            release(key);
+        }
+    }
+
+    private void release(String key) {
+        locks.computeIfPresent(key, (k, entry) -> --entry.users == 0 ? null : entry);
+    }
+
+    /**
+     * Takes a lease on every key or on none: a key held by another owner releases the leases just taken,
+     * and the whole set is retried after a short random backoff.
+     */
+    private void acquireLeases(List<String> keys, String owner, long deadline) {
+        while (true) {
+            Date now = new Date();
+            Date expiresAt = new Date(now.getTime() + leaseMs);
+            BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, IdentifierLease.class);
+            for (String key : keys) {
+                // Matches a missing or expired lease; a live lease makes the upsert fail with a duplicate key
+                bulkOps.upsert(Query.query(Criteria.where("_id").is(key).and("expiresAt").lt(now)),
+                        new Update().set("owner", owner).set("expiresAt", expiresAt));
+            }
+
+            Set<String> held = new HashSet<>();
+            try {
+                bulkOps.execute();
+                return;
+            } catch (BulkOperationException e) {
+                for (BulkWriteError error : e.getErrors()) {
+                    if (error.getCode() != DUPLICATE_KEY) {
+                        releaseLeases(keys, owner);
+                        throw e;
+                    }
+                    held.add(keys.get(error.getIndex()));
+                }
+            }
+
+            releaseLeases(keys, owner);
+            if (System.nanoTime() >= deadline) {
+                log.warn("Timed out waiting for {} identifier leases held by other nodes", held.size());
+                throw new IllegalStateException("Timed out waiting for identifier locks");
+            }
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextLong(10, 100));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for identifier locks");
+            }
+        }
+    }
+
+    private void releaseLeases(List<String> keys, String owner) {
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(keys).and("owner").is(owner)), IdentifierLease.class);
+        } catch (Exception e) {
+            // Leases expire on their own
+            log.warn("Failed to release {} identifier leases: {}", keys.size(), e.getMessage());
+        }
+    }
+}
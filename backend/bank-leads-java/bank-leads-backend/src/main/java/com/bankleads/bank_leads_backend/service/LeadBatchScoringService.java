@@ -0,0 +1,316 @@
+package com.bankleads.bank_leads_backend.service;
+
+import com.bankleads.bank_leads_backend.model.Lead;
+import com.bankleads.bank_leads_backend.model.ScoringCheckpoint;
+import com.bankleads.bank_leads_backend.repository.ScoringCheckpointRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scores leads in bulk: leads matching the filter are read in _id order one chunk at a time, scored in parallel
+ * slices and written back with one unordered bulk $set of leadScore/scoreReason/scoredAt per chunk.
+ * Progress is checkpointed per filter in scoring_checkpoints so a run cut short by a restart picks up where it stopped.
+ */
+@Service
+@RequiredArgsConstructor
+public class LeadBatchScoringService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadBatchScoringService.class);
+
+    public enum Mode {
+        // Every lead matching the filter
+        ALL,
+        // Leads without a score
+        UNSCORED,
+        // Unscored leads and leads updated after they were last scored
+        STALE;
+
+        public static Mode parse(String value) {
+            try {
+                return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid scoring mode '" + value + "' (expected all, unscored or stale)");
+            }
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final LeadScorer leadScorer;
+    private final ScoringCheckpointRepository checkpointRepository;
+
+    @Value("${app.scoring.batch.chunk-size:1000}")
+    private int defaultChunkSize;
+
+    @Value("${app.scoring.batch.workers:4}")
+    private int workers;
+
+    // Leads scored per task; a chunk is split into slices of this size across the workers
+    @Value("${app.scoring.batch.slice-size:250}")
+    private int sliceSize;
+
+    // Filters currently being scored on this instance
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        int threads = Math.max(1, workers);
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "lead-scoring-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /** Rescores stale leads of every product; disabled unless app.scoring.batch.cron is set. */
+    @Scheduled(cron = "${app.scoring.batch.cron:-}")
+    public void scheduledRun() {
+        try {
+            score(null, null, null, Mode.STALE, true, defaultChunkSize);
+        } catch (IllegalStateException e) {
+            log.info("Scheduled lead scoring skipped: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Scheduled lead scoring failed", e);
+        }
+    }
+
+    /**
+     * Scores the leads matching the filter. With {@code resume}, an unfinished run of the same filter
+     * continues after its checkpoint instead of starting over.
+     * @throws IllegalStateException when the same filter is already being scored on this instance
+     */
+    public BatchScoringResult score(String pId, String sourceId, LocalDateTime updatedSince, Mode mode,
+                                    boolean resume, int chunkSize) {
+        String key = checkpointKey(pId, sourceId, updatedSince, mode);
+        if (!running.add(key)) {
+            throw new IllegalStateException("Batch scoring is already running for " + key);
+        }
+        try {
+            return run(key, pId, sourceId, updatedSince, mode, resume, chunkSize);
+        } finally {
+            running.remove(key);
+        }
+    }
+
+    private BatchScoringResult run(String key, String pId, String sourceId, LocalDateTime updatedSince, Mode mode,
+                                   boolean resume, int chunkSize) {
+        BatchScoringResult result = new BatchScoringResult();
+        result.setCheckpoint(key);
+        result.setMode(mode);
+        result.setStartedAt(LocalDateTime.now());
+        long started = System.nanoTime();
+
+        ScoringCheckpoint checkpoint = checkpointRepository.findById(key).orElse(null);
+        String lastLeadId = null;
+        if (resume && checkpoint != null && checkpoint.getStatus() != ScoringCheckpoint.Status.COMPLETED) {
+            lastLeadId = checkpoint.getLastLeadId();
+            result.setResumedFrom(lastLeadId);
+        } else {
+            checkpoint = ScoringCheckpoint.builder().id(key).build();
+        }
+        checkpoint.setStatus(ScoringCheckpoint.Status.RUNNING);
+        checkpoint.setLastLeadId(lastLeadId);
+        checkpoint.setScanned(0);
+        checkpoint.setScored(0);
+        checkpoint.setFailed(0);
+        checkpoint.setErrorMessage(null);
+        checkpoint.setStartedAt(result.getStartedAt());
+        checkpoint.setUpdatedAt(result.getStartedAt());
+        checkpoint.setFinishedAt(null);
+        checkpointRepository.save(checkpoint);
+
+        List<Criteria> filter = filter(pId, sourceId, updatedSince, mode);
+        try {
+            while (true) {
+                List<Lead> leads = nextChunk(filter, lastLeadId, chunkSize);
+                if (leads.isEmpty()) {
+                    break;
+                }
+                List<Scored> scored = scoreInParallel(leads);
+                int written = write(scored);
+
+                result.scanned += leads.size();
+                result.scored += written;
+                result.failed += scored.size() - written;
+                lastLeadId = leads.get(leads.size() - 1).getId();
+
+                checkpoint.setLastLeadId(lastLeadId);
+                checkpoint.setScanned(result.scanned);
+                checkpoint.setScored(result.scored);
+                checkpoint.setFailed(result.failed);
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+                checkpointRepository.save(checkpoint);
+
+                if (leads.size() < chunkSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            checkpoint.setStatus(ScoringCheckpoint.Status.FAILED);
+            checkpoint.setErrorMessage(e.getMessage());
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            checkpointRepository.save(checkpoint);
+            log.error("Batch scoring {} failed after {} leads (checkpoint {})", key, result.scanned, lastLeadId, e);
+            throw e;
+        }
+
+        result.setFinishedAt(LocalDateTime.now());
+        result.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        result.setLeadsPerSecond(result.elapsedMs > 0 ? result.scored * 1000.0 / result.elapsedMs : result.scored);
+
+        checkpoint.setStatus(ScoringCheckpoint.Status.COMPLETED);
+        checkpoint.setUpdatedAt(result.getFinishedAt());
+        checkpoint.setFinishedAt(result.getFinishedAt());
+        checkpointRepository.save(checkpoint);
+
+        log.info("Batch scoring {}: scanned={}, scored={}, failed={}, elapsedMs={}, leadsPerSecond={}",
+                key, result.scanned, result.scored, result.failed, result.elapsedMs,
+                String.format(Locale.ROOT, "%.1f", result.leadsPerSecond));
+        return result;
+    }
+
+    private static String checkpointKey(String pId, String sourceId, LocalDateTime updatedSince, Mode mode) {
+        return mode.name().toLowerCase(Locale.ROOT)
+                + "|" + (pId != null ? pId : "")
+                + "|" + (sourceId != null ? sourceId : "")
+                + "|" + (updatedSince != null ? updatedSince : "");
+    }
+
+    private static List<Criteria> filter(String pId, String sourceId, LocalDateTime updatedSince, Mode mode) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (pId != null) {
+            criteria.add(Criteria.where("pId").is(pId));
+        }
+        if (sourceId != null) {
+            criteria.add(Criteria.where("sourceId").is(sourceId));
+        }
+        if (updatedSince != null) {
+            criteria.add(Criteria.where("updatedAt").gte(updatedSince));
+        }
+        if (mode == Mode.UNSCORED) {
+            criteria.add(Criteria.where("leadScore").is(null));
+        } else if (mode == Mode.STALE) {
+            criteria.add(new Criteria().orOperator(
+                    Criteria.where("leadScore").is(null),
+                    Criteria.where("scoredAt").is(null),
+                    Criteria.expr(ComparisonOperators.valueOf("updatedAt").greaterThan("scoredAt"))));
+        }
+        return criteria;
+    }
+
+    private List<Lead> nextChunk(List<Criteria> filter, String afterId, int chunkSize) {
+        List<Criteria> criteria = new ArrayList<>(filter);
+        if (afterId != null) {
+            criteria.add(Criteria.where("_id").gt(afterId));
+        }
+        Query query = criteria.isEmpty() ? new Query() : new Query(new Criteria().andOperator(criteria));
+        query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(chunkSize);
+        query.fields().include("id", "name", "email", "phoneNumber", "aadharNumber", "pId",
+                "sourcesSeen", "productsSeen", "createdAt");
+        return mongoTemplate.find(query, Lead.class);
+    }
+
+    private List<Scored> scoreInParallel(List<Lead> leads) {
+        int slice = Math.max(1, sliceSize);
+        List<CompletableFuture<List<Scored>>> tasks = new ArrayList<>();
+        for (int from = 0; from < leads.size(); from += slice) {
+            List<Lead> part = leads.subList(from, Math.min(from + slice, leads.size()));
+            tasks.add(CompletableFuture.supplyAsync(() -> scoreSlice(part), executor));
+        }
+        List<Scored> scored = new ArrayList<>(leads.size());
+        try {
+            for (CompletableFuture<List<Scored>> task : tasks) {
+                scored.addAll(task.join());
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+        return scored;
+    }
+
+    private List<Scored> scoreSlice(List<Lead> leads) {
+        List<Scored> scored = new ArrayList<>(leads.size());
+        for (Lead lead : leads) {
+            LeadScoringService.ScoringResult result = leadScorer.score(lead);
+            scored.add(new Scored(lead.getId(), result.getScore(), result.getReason()));
+        }
+        return scored;
+    }
+
+    /** Returns the number of leads written; failed writes are logged and left for the next stale run. */
+    private int write(List<Scored> scored) {
+        if (scored.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Lead.class);
+        for (Scored s : scored) {
+            // Not a full save, so updatedAt is left alone and the lead is not marked stale by its own scoring
+            bulkOps.updateOne(Query.query(Criteria.where("_id").is(s.id())),
+                    new Update().set("leadScore", s.score()).set("scoreReason", s.reason()).set("scoredAt", now));
+        }
+        try {
+            bulkOps.execute();
+            return scored.size();
+        } catch (BulkOperationException e) {
+            log.warn("Batch scoring: {} of {} score updates failed, first: {}", e.getErrors().size(), scored.size(),
+                    e.getErrors().get(0).getMessage());
+            return scored.size() - e.getErrors().size();
+        }
+    }
+
+    private record Scored(String id, double score, String reason) {
+    }
+
+    @Data
+    public static class BatchScoringResult {
+        private String checkpoint;
+        private Mode mode;
+        // Mongo _id the run continued after, or null for a fresh run
+        private String resumedFrom;
+        private long scanned;
+        private long scored;
+        private long failed;
+        private long elapsedMs;
+        private double leadsPerSecond;
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+    }
+}
@@ -0,0 +1,88 @@
+package com.bankleads.bank_leads_backend.service;
+
+import com.bankleads.bank_leads_backend.dto.response.LeadDTO;
+import com.bankleads.bank_leads_backend.model.LeadSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds LeadDTOs from lead summaries. Product and source names are resolved for the distinct ids on the page
+ * through the metadata cache (misses loaded with one $in query each) instead of one lookup per lead.
+ */
+@Service
+@RequiredArgsConstructor
+public class LeadEnrichmentService {
+
+    private final MetadataCacheService metadataCacheService;
+
+    public List<LeadDTO> toDtos(List<LeadSummary> leads) {
+        Set<String> pIds = new HashSet<>();
+        Set<String> sourceIds = new HashSet<>();
+        for (LeadSummary lead : leads) {
+            if (lead.getPId() != null) pIds.add(lead.getPId());
+            if (lead.getSourceId() != null) sourceIds.add(lead.getSourceId());
+        }
+
+        Map<String, String> productNames = new HashMap<>();
+        if (!pIds.isEmpty()) {
+            metadataCacheService.findProducts(pIds).forEach((pId, product) -> productNames.put(pId, product.getPName()));
+        }
+
+        Map<String, String> sourceNames = new HashMap<>();
+        if (!sourceIds.isEmpty()) {
+            metadataCacheService.findSources(sourceIds).forEach((sId, source) -> sourceNames.put(sId, source.getSName()));
+        }
+
+        List<LeadDTO> dtos = new ArrayList<>(leads.size());
+        for (LeadSummary lead : leads) {
+            dtos.add(toDto(lead, nameOrEmpty(productNames, lead.getPId()), nameOrEmpty(sourceNames, lead.getSourceId())));
+        }
+        return dtos;
+    }
+
+    /**
+     * Single-lead variant for streaming callers; names come from the metadata cache, so repeated ids stay in memory.
+     */
+    public LeadDTO toDto(LeadSummary lead) {
+        String productName = lead.getPId() != null
+                ? metadataCacheService.findProduct(lead.getPId()).map(p -> p.getPName()).orElse("") : "";
+        String sourceName = lead.getSourceId() != null
+                ? metadataCacheService.findSource(lead.getSourceId()).map(s -> s.getSName()).orElse("") : "";
+        return toDto(lead, productName, sourceName);
+    }
+
+    private static String nameOrEmpty(Map<String, String> names, String key) {
+        if (key == null) return "";
+        String name = names.get(key);
+        return name != null ? name : "";
+    }
+
+    private static LeadDTO toDto(LeadSummary lead, String productName, String sourceName) {
+        return LeadDTO.builder()
+                .leadId(lead.getLeadId())
+                .name(lead.getName())
+                .email(lead.getEmail())
+                .phoneNumber(lead.getPhoneNumber())
+                .aadharNumber(lead.getAadharNumber())
+                .pId(lead.getPId())
+                .productName(productName)
+                .sourceId(lead.getSourceId())
+                .sourceName(sourceName)
+                .createdAt(lead.getCreatedAt())
+                .income(lead.getIncome())
+                .creditScore(lead.getCreditScore())
+                .employmentType(lead.getEmploymentType())
+                .loanAmount(lead.getLoanAmount())
+                .converted(lead.getConverted())
+                .leadScore(lead.getLeadScore())
+                .scoreReason(lead.getScoreReason())
+                .build();
+    }
+}
@@ -0,0 +1,122 @@
+package com.bankleads.bank_leads_backend.service;
+
+import com.bankleads.bank_leads_backend.dto.response.LeadDTO;
+import com.bankleads.bank_leads_backend.model.LeadSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Streams filtered leads from a Mongo cursor straight to an output stream as CSV or NDJSON.
+ * Only the current cursor batch and one row are held in memory, so heap use does not grow with the export size.
+ */
+@Service
+@RequiredArgsConstructor
+public class LeadExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadExportService.class);
+
+    private static final String[] CSV_HEADERS = {
+            "leadId", "name", "email", "phoneNumber", "aadharNumber", "pId", "productName", "sourceId", "sourceName",
+            "createdAt", "income", "creditScore", "employmentType", "loanAmount", "converted"
+    };
+
+    private final MongoTemplate mongoTemplate;
+    private final LeadEnrichmentService leadEnrichmentService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.leads.export.batch-size:1000}")
+    private int batchSize;
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() { return contentType; }
+        public String getExtension() { return extension; }
+
+        public static Format parse(String value) {
+            if (value == null || value.isBlank()) {
+                return CSV;
+            }
+            try {
+                return Format.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid export format '" + value + "'. Allowed values: csv, ndjson");
+            }
+        }
+    }
+
+    /**
+     * Writes every lead matching {@code filter} to {@code out}, newest first. The writer is flushed after each
+     * cursor batch so the response goes out in chunks while the cursor is still open.
+     * @return number of leads written
+     */
+    public long export(List<Criteria> filter, Format format, OutputStream out) throws IOException {
+        Query query = filter.isEmpty() ? new Query() : new Query(new Criteria().andOperator(filter));
+        query.fields().include(LeadSummary.FIELDS);
+        query.with(Sort.by(Sort.Direction.DESC, "createdAt"));
+        query.cursorBatchSize(batchSize);
+
+        long written = 0;
+        long started = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try (Stream<LeadSummary> leads = mongoTemplate.stream(query, LeadSummary.class, LeadQueryService.LEADS_COLLECTION)) {
+            Iterator<LeadSummary> it = leads.iterator();
+            if (format == Format.CSV) {
+                CSVPrinter printer = new CSVPrinter(writer, CSVFormat.DEFAULT.builder().setHeader(CSV_HEADERS).build());
+                while (it.hasNext()) {
+                    LeadDTO dto = leadEnrichmentService.toDto(it.next());
+                    printer.printRecord(dto.getLeadId(), dto.getName(), dto.getEmail(), dto.getPhoneNumber(),
+                            dto.getAadharNumber(), dto.getPId(), dto.getProductName(), dto.getSourceId(),
+                            dto.getSourceName(), dto.getCreatedAt(), dto.getIncome(), dto.getCreditScore(),
+                            dto.getEmploymentType(), dto.getLoanAmount(), dto.getConverted());
+                    if (++written % batchSize == 0) {
+                        printer.flush();
+                    }
+                }
+                printer.flush();
+            } else {
+                ObjectWriter json = objectMapper.writerFor(LeadDTO.class);
+                while (it.hasNext()) {
+                    writer.write(json.writeValueAsString(leadEnrichmentService.toDto(it.next())));
+                    writer.write('\n');
+                    if (++written % batchSize == 0) {
+                        writer.flush();
+                    }
+                }
+                writer.flush();
+            }
+        }
+        log.info("Lead export finished: format={}, rows={}, durationMs={}", format, written, System.currentTimeMillis() - started);
+        return written;
+    }
+}
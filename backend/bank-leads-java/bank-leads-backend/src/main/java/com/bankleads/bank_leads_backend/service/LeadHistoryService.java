@@ -0,0 +1,231 @@
+package com.bankleads.bank_leads_backend.service;
+
+import com.bankleads.bank_leads_backend.model.Lead;
+import com.bankleads.bank_leads_backend.model.LeadMergeEvent;
+import com.bankleads.bank_leads_backend.repository.LeadMergeEventRepository;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Append-only merge history in lead_merge_events. Upserts and deduplication append events here instead of
+ * pushing onto Lead.mergedFrom; {@link #migrateEmbeddedHistory} moves the legacy embedded arrays out.
+ */
+@Service
+@RequiredArgsConstructor
+public class LeadHistoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadHistoryService.class);
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final LeadMergeEventRepository leadMergeEventRepository;
+    private final MongoTemplate mongoTemplate;
+
+    public static LeadMergeEvent event(LeadMergeEvent.Type type, String leadId, String sourceId, String pId, Object data) {
+        return LeadMergeEvent.builder()
+                .leadId(leadId)
+                .type(type)
+                .timestamp(LocalDateTime.now())
+                .sourceId(sourceId)
+                .pId(pId)
+                .data(data)
+                .build();
+    }
+
+    /**
+     * Inserts events with one unordered bulk write. History is an audit trail, so a failure is logged
+     * rather than failing the lead write that already went through.
+     */
+    public void append(List<LeadMergeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            insertIgnoringDuplicates(events);
+        } catch (Exception e) {
+            log.error("Failed to append {} lead merge events: {}", events.size(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Newest first.
+     */
+    public Page<LeadMergeEvent> getHistory(String leadId, int page, int limit) {
+        PageRequest pageable = PageRequest.of(Math.max(0, page - 1), Math.min(500, Math.max(1, limit)),
+                Sort.by(Sort.Direction.DESC, "timestamp").and(Sort.by(Sort.Direction.DESC, "id")));
+        return leadMergeEventRepository.findByLeadId(leadId, pageable);
+    }
+
+    /**
+     * Batch variant of {@link #reassign}: kept lead id to the lead ids it absorbed, in one bulk write.
+     */
+    public void reassignAll(Map<String, ? extends Collection<String>> fromLeadIdsByKept) {
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LeadMergeEvent.class);
+        int operations = 0;
+        for (Map.Entry<String, ? extends Collection<String>> entry : fromLeadIdsByKept.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            bulkOps.updateMulti(Query.query(Criteria.where("leadId").in(entry.getValue())),
+                    Update.update("leadId", entry.getKey()));
+            operations++;
+        }
+        if (operations == 0) {
+            return;
+        }
+        try {
+            bulkOps.execute();
+        } catch (Exception e) {
+            log.error("Failed to reassign merge history of {} leads: {}", operations, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Moves the history of leads absorbed by deduplication onto the kept lead.
+     */
+    public void reassign(Collection<String> fromLeadIds, String toLeadId) {
+        if (fromLeadIds.isEmpty()) {
+            return;
+        }
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("leadId").in(fromLeadIds)),
+                Update.update("leadId", toLeadId),
+                LeadMergeEvent.class);
+    }
+
+    /**
+     * Events for a lead's embedded mergedFrom entries. Ids are derived from the lead and entry position,
+     * so converting the same lead twice does not duplicate its history.
+     */
+    public static List<LeadMergeEvent> fromEmbedded(String leadId, String documentId, List<Lead.MergeRecord> records) {
+        List<LeadMergeEvent> events = new ArrayList<>();
+        if (records == null) {
+            return events;
+        }
+        for (int i = 0; i < records.size(); i++) {
+            Lead.MergeRecord record = records.get(i);
+            if (record == null) {
+                continue;
+            }
+            events.add(LeadMergeEvent.builder()
+                    .id("legacy-" + documentId + "-" + i)
+                    .leadId(leadId)
+                    .type(LeadMergeEvent.Type.LEGACY)
+                    .timestamp(record.getTimestamp())
+                    .sourceId(record.getSourceId())
+                    .pId(record.getPId())
+                    .data(record.getData())
+                    .build());
+        }
+        return events;
+    }
+
+    /**
+     * Copies every non-empty Lead.mergedFrom array into lead_merge_events and then clears it, in batches.
+     * Safe to re-run: event ids are deterministic and a lead is only cleared after its events are stored.
+     */
+    public MigrationResult migrateEmbeddedHistory(int batchSize) {
+        MigrationResult result = new MigrationResult();
+        result.setStartedAt(LocalDateTime.now());
+
+        Query query = Query.query(Criteria.where("mergedFrom.0").exists(true));
+        query.fields().include("id", "leadId", "mergedFrom");
+        query.cursorBatchSize(batchSize);
+
+        List<Lead> batch = new ArrayList<>(batchSize);
+        try (Stream<Lead> leads = mongoTemplate.stream(query, Lead.class)) {
+            for (Lead lead : (Iterable<Lead>) leads::iterator) {
+                batch.add(lead);
+                if (batch.size() >= batchSize) {
+                    migrateBatch(batch, result);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            migrateBatch(batch, result);
+        }
+
+        result.setFinishedAt(LocalDateTime.now());
+        log.info("Merge history migration: leads={}, events={}, failedLeads={}",
+                result.getLeadsMigrated(), result.getEventsWritten(), result.getLeadsFailed());
+        return result;
+    }
+
+    private void migrateBatch(List<Lead> leads, MigrationResult result) {
+        List<LeadMergeEvent> events = new ArrayList<>();
+        List<String> ready = new ArrayList<>();
+        for (Lead lead : leads) {
+            if (lead.getLeadId() == null || lead.getLeadId().isBlank()) {
+                // No stable key to hang the history on; leave it embedded
+                result.leadsFailed++;
+                continue;
+            }
+            events.addAll(fromEmbedded(lead.getLeadId(), lead.getId(), lead.getMergedFrom()));
+            ready.add(lead.getId());
+        }
+
+        try {
+            insertIgnoringDuplicates(events);
+        } catch (Exception e) {
+            log.error("Merge history migration batch failed; {} leads left embedded: {}", ready.size(), e.getMessage());
+            result.leadsFailed += ready.size();
+            return;
+        }
+
+        if (!ready.isEmpty()) {
+            mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("_id").in(ready)),
+                    new Update().set("mergedFrom", new ArrayList<>()),
+                    Lead.class);
+        }
+        result.leadsMigrated += ready.size();
+        result.eventsWritten += events.size();
+    }
+
+    private void insertIgnoringDuplicates(List<LeadMergeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LeadMergeEvent.class);
+        bulkOps.insert(events);
+        try {
+            bulkOps.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Data
+    public static class MigrationResult {
+        private long leadsMigrated;
+        private long eventsWritten;
+        private long leadsFailed;
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+    }
+}
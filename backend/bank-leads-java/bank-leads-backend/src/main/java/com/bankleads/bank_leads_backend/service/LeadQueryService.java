@@ -0,0 +1,268 @@
+package com.bankleads.bank_leads_backend.service;
+
+import com.bankleads.bank_leads_backend.dto.response.CursorPage;
+import com.bankleads.bank_leads_backend.dto.response.LeadDTO;
+import com.bankleads.bank_leads_backend.model.Lead;
+import com.bankleads.bank_leads_backend.model.LeadSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.bson.Document;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Lead listing filters shared by the paged and cursor modes of GET /api/leads.
+ * Cursor mode orders by (createdAt, _id) and seeks past the last returned lead with a range predicate
+ * instead of skip/limit, so every page costs the same regardless of depth; counting is opt-in.
+ */
+@Service
+@RequiredArgsConstructor
+public class LeadQueryService {
+
+    public static final String LEADS_COLLECTION = "leads";
+
+    private static final String CURSOR_VERSION = "v1";
+
+    private final MongoTemplate mongoTemplate;
+    private final LeadEnrichmentService leadEnrichmentService;
+    private final LeadSearchService leadSearchService;
+
+    @Value("${app.leads.count-cap:10000}")
+    private long countCap;
+
+    public enum CountMode {
+        NONE, ESTIMATED, EXACT;
+
+        public static CountMode parse(String value) {
+            if (value == null || value.isBlank()) {
+                return NONE;
+            }
+            try {
+                return CountMode.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid count mode '" + value + "'. Allowed values: none, estimated, exact");
+            }
+        }
+    }
+
+    /**
+     * Filter criteria for the lead listing; each element is ANDed with the others.
+     */
+    public List<Criteria> buildFilter(String pId, String sourceId, String from, String to, String q) {
+        List<Criteria> criteria = new ArrayList<>();
+
+        if (pId != null) {
+            criteria.add(Criteria.where("pId").is(pId.toUpperCase()));
+        }
+
+        if (sourceId != null) {
+            criteria.add(Criteria.where("sourceId").is(sourceId.toUpperCase()));
+        }
+
+        if (from != null || to != null) {
+            Criteria dateCriteria = Criteria.where("createdAt");
+            if (from != null) {
+                dateCriteria.gte(LocalDateTime.parse(from));
+            }
+            if (to != null) {
+                dateCriteria.lte(LocalDateTime.parse(to));
+            }
+            criteria.add(dateCriteria);
+        }
+
+        if (q != null && !q.trim().isEmpty()) {
+            Criteria search = leadSearchService.searchCriteria(q);
+            if (search != null) {
+                criteria.add(search);
+            }
+        }
+
+        return criteria;
+    }
+
+    /**
+     * Returns the page after {@code cursor} (or the first page when it is null), ordered by createdAt then _id.
+     * With pId and sourceId filters the seek runs on lead_dashboard_cursor_index.
+     */
+    public CursorPage<LeadDTO> findPage(List<Criteria> filter, String cursor, int limit, boolean descending, CountMode countMode) {
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+
+        List<Criteria> criteria = new ArrayList<>(filter);
+        if (cursor != null && !cursor.isBlank()) {
+            criteria.add(seekCriteria(Cursor.decode(cursor, descending), descending));
+        }
+
+        Query query = criteria.isEmpty() ? new Query() : new Query(new Criteria().andOperator(criteria));
+        query.with(Sort.by(direction, "createdAt").and(Sort.by(direction, "id")));
+        // One extra row tells us whether another page exists without counting
+        query.limit(limit + 1);
+
+        List<LeadSummary> leads = findSummaries(query);
+        boolean hasMore = leads.size() > limit;
+        if (hasMore) {
+            leads = leads.subList(0, limit);
+        }
+
+        CursorPage<LeadDTO> page = CursorPage.<LeadDTO>builder()
+                .content(leadEnrichmentService.toDtos(leads))
+                .size(leads.size())
+                .hasMore(hasMore)
+                .build();
+        if (hasMore) {
+            LeadSummary last = leads.get(leads.size() - 1);
+            page.setNextCursor(new Cursor(descending, last.getCreatedAt(), last.getId()).encode());
+        }
+
+        switch (countMode) {
+            case EXACT -> {
+                page.setTotal(countMatching(filter, 0));
+                page.setTotalExact(true);
+            }
+            case ESTIMATED -> {
+                if (filter.isEmpty()) {
+                    // Collection metadata count, no scan
+                    page.setTotal(mongoTemplate.estimatedCount(Lead.class));
+                    page.setTotalExact(false);
+                } else {
+                    long counted = countMatching(filter, countCap);
+                    page.setTotal(counted);
+                    page.setTotalExact(counted < countCap);
+                }
+            }
+            default -> {
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Search results ordered by relevance to {@code q} (see {@link LeadSearchService#relevanceStage}), newest first
+     * within the same score. Only the token matches are scored and sorted, never the whole collection.
+     */
+    public Page<LeadSummary> findByRelevance(List<Criteria> filter, String q, Pageable pageable) {
+        Criteria match = filter.isEmpty() ? new Criteria() : new Criteria().andOperator(filter);
+        Document projection = new Document();
+        for (String field : LeadSummary.FIELDS) {
+            projection.append(documentKey(field), 1);
+        }
+
+        Aggregation aggregation = Aggregation.newAggregation(Lead.class,
+                Aggregation.match(match),
+                context -> leadSearchService.relevanceStage(q),
+                context -> new Document("$sort", new Document("_relevance", -1).append("createdAt", -1).append("_id", -1)),
+                context -> new Document("$skip", pageable.getOffset()),
+                context -> new Document("$limit", pageable.getPageSize()),
+                context -> new Document("$project", projection));
+
+        List<LeadSummary> leads = mongoTemplate.aggregate(aggregation, LEADS_COLLECTION, LeadSummary.class).getMappedResults();
+        long total = mongoTemplate.count(new Query(match), Lead.class);
+        return new PageImpl<>(leads, pageable, total);
+    }
+
+    private static String documentKey(String property) {
+        return switch (property) {
+            case "id" -> "_id";
+            case "leadId" -> "lead_id";
+            default -> property;
+        };
+    }
+
+    /**
+     * Runs {@code query} against the leads collection with the LeadSummary projection.
+     */
+    public List<LeadSummary> findSummaries(Query query) {
+        query.fields().include(LeadSummary.FIELDS);
+        return mongoTemplate.find(query, LeadSummary.class, LEADS_COLLECTION);
+    }
+
+    private long countMatching(List<Criteria> filter, long cap) {
+        Query countQuery = filter.isEmpty() ? new Query() : new Query(new Criteria().andOperator(filter));
+        if (cap > 0) {
+            countQuery.limit((int) Math.min(Integer.MAX_VALUE, cap));
+        }
+        return mongoTemplate.count(countQuery, Lead.class);
+    }
+
+    /**
+     * Leads strictly after the cursor position. Mongo sorts missing createdAt before any date,
+     * so those leads come last when descending and first when ascending.
+     */
+    private static Criteria seekCriteria(Cursor cursor, boolean descending) {
+        if (cursor.createdAt == null) {
+            Criteria sameNullKey = new Criteria().andOperator(
+                    Criteria.where("createdAt").is(null),
+                    descending ? Criteria.where("id").lt(cursor.id) : Criteria.where("id").gt(cursor.id));
+            if (descending) {
+                return sameNullKey;
+            }
+            return new Criteria().orOperator(sameNullKey, Criteria.where("createdAt").ne(null));
+        }
+
+        Criteria sameKey = new Criteria().andOperator(
+                Criteria.where("createdAt").is(cursor.createdAt),
+                descending ? Criteria.where("id").lt(cursor.id) : Criteria.where("id").gt(cursor.id));
+        if (descending) {
+            return new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(cursor.createdAt),
+                    sameKey,
+                    Criteria.where("createdAt").is(null));
+        }
+        return new Criteria().orOperator(Criteria.where("createdAt").gt(cursor.createdAt), sameKey);
+    }
+
+    /**
+     * Opaque position token: URL-safe base64 of "v1|order|createdAt|id".
+     */
+    static final class Cursor {
+        final boolean descending;
+        final LocalDateTime createdAt;
+        final String id;
+
+        Cursor(boolean descending, LocalDateTime createdAt, String id) {
+            this.descending = descending;
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+
+        String encode() {
+            String raw = String.join("|", CURSOR_VERSION, descending ? "d" : "a",
+                    createdAt != null ? createdAt.toString() : "", id);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String token, boolean descending) {
+            String[] parts;
+            try {
+                parts = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8).split("\\|", -1);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            if (parts.length != 4 || !CURSOR_VERSION.equals(parts[0]) || parts[3].isEmpty()) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            if (("d".equals(parts[1])) != descending) {
+                throw new IllegalArgumentException("Cursor was issued for a different sort order");
+            }
+            try {
+                LocalDateTime createdAt = parts[2].isEmpty() ? null : LocalDateTime.parse(parts[2]);
+                return new Cursor(descending, createdAt, parts[3]);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.bankleads.bank_leads_backend.service;
+
+import com.bankleads.bank_leads_backend.config.MongoIndexInitializer;
+import com.bankleads.bank_leads_backend.dto.response.CursorPage;
+import com.bankleads.bank_leads_backend.dto.response.LeadDTO;
+import com.bankleads.bank_leads_backend.model.LeadSummary;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * Scored leads in rank order: leadScore descending, then newest createdAt, then _id. Unscored leads are not ranked.
+ * With a product filter (and no text search) the page is read from lead_ranking_index in rank order, so only
+ * k + 1 leads are touched. The index is hinted: the seek predicate is an $or, for which the planner may otherwise
+ * pick per-branch index scans followed by a blocking sort. Until the index is in place (see
+ * {@link MongoIndexInitializer}), and for other filters, the matching leads are streamed once and the best k + 1
+ * kept in a bounded min-heap. Both paths continue from a cursor with the same (leadScore, createdAt, _id) seek
+ * predicate.
+ */
+@Service
+@RequiredArgsConstructor
+public class LeadRankingService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadRankingService.class);
+
+    private static final String CURSOR_VERSION = "r1";
+    private static final String RANKING_INDEX = "lead_ranking_index";
+
+    // Best first; nulls of createdAt last, as in a descending Mongo sort
+    private static final Comparator<LeadSummary> RANK_ORDER = Comparator
+            .comparing(LeadSummary::getLeadScore, Comparator.reverseOrder())
+            .thenComparing(LeadSummary::getCreatedAt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()).reversed())
+            .thenComparing(LeadSummary::getId, Comparator.reverseOrder());
+
+    private final MongoTemplate mongoTemplate;
+    private final LeadQueryService leadQueryService;
+    private final LeadEnrichmentService leadEnrichmentService;
+    private final MongoIndexInitializer mongoIndexInitializer;
+
+    public CursorPage<LeadDTO> findTopK(String pId, String sourceId, String from, String to, String q,
+                                        String cursor, int k) {
+        List<Criteria> criteria = new ArrayList<>(leadQueryService.buildFilter(pId, sourceId, from, to, q));
+        criteria.add(Criteria.where("leadScore").ne(null));
+        if (cursor != null && !cursor.isBlank()) {
+            criteria.add(seekCriteria(Cursor.decode(cursor)));
+        }
+        Query query = new Query(new Criteria().andOperator(criteria));
+
+        boolean indexed = pId != null && (q == null || q.isBlank()) && mongoIndexInitializer.isReady(RANKING_INDEX);
+        List<LeadSummary> leads = indexed ? fromIndex(query, k + 1) : fromHeap(query, k + 1);
+        log.debug("Ranked leads: p_id={}, k={}, indexed={}, returned={}", pId, k, indexed, leads.size());
+
+        // One extra lead tells us whether another page exists
+        boolean hasMore = leads.size() > k;
+        if (hasMore) {
+            leads = leads.subList(0, k);
+        }
+        CursorPage<LeadDTO> page = CursorPage.<LeadDTO>builder()
+                .content(leadEnrichmentService.toDtos(leads))
+                .size(leads.size())
+                .hasMore(hasMore)
+                .build();
+        if (hasMore) {
+            LeadSummary last = leads.get(leads.size() - 1);
+            page.setNextCursor(new Cursor(last.getLeadScore(), last.getCreatedAt(), last.getId()).encode());
+        }
+        return page;
+    }
+
+    private List<LeadSummary> fromIndex(Query query, int limit) {
+        query.with(Sort.by(Sort.Direction.DESC, "leadScore").and(Sort.by(Sort.Direction.DESC, "createdAt"))
+                .and(Sort.by(Sort.Direction.DESC, "id")));
+        query.withHint(RANKING_INDEX);
+        query.limit(limit);
+        return leadQueryService.findSummaries(query);
+    }
+
+    private List<LeadSummary> fromHeap(Query query, int limit) {
+        query.fields().include(LeadSummary.FIELDS);
+        // Head is the worst lead kept so far; it is evicted whenever a better one arrives
+        PriorityQueue<LeadSummary> heap = new PriorityQueue<>(limit + 1, RANK_ORDER.reversed());
+        try (Stream<LeadSummary> leads = mongoTemplate.stream(query, LeadSummary.class, LeadQueryService.LEADS_COLLECTION)) {
+            for (LeadSummary lead : (Iterable<LeadSummary>) leads::iterator) {
+                if (heap.size() < limit) {
+                    heap.add(lead);
+                } else if (RANK_ORDER.compare(lead, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(lead);
+                }
+            }
+        }
+        List<LeadSummary> ranked = new ArrayList<>(heap);
+        ranked.sort(RANK_ORDER);
+        return ranked;
+    }
+
+    /**
+     * Leads ranked strictly after the cursor position.
+     */
+    private static Criteria seekCriteria(Cursor cursor) {
+        Criteria lowerScore = Criteria.where("leadScore").lt(cursor.score);
+        if (cursor.createdAt == null) {
+            return new Criteria().orOperator(lowerScore, new Criteria().andOperator(
+                    Criteria.where("leadScore").is(cursor.score),
+                    Criteria.where("createdAt").is(null),
+                    Criteria.where("id").lt(cursor.id)));
+        }
+        return new Criteria().orOperator(
+                lowerScore,
+                new Criteria().andOperator(
+                        Criteria.where("leadScore").is(cursor.score),
+                        new Criteria().orOperator(
+                                Criteria.where("createdAt").lt(cursor.createdAt),
+                                Criteria.where("createdAt").is(null))),
+                new Criteria().andOperator(
+                        Criteria.where("leadScore").is(cursor.score),
+                        Criteria.where("createdAt").is(cursor.createdAt),
+                        Criteria.where("id").lt(cursor.id)));
+    }
+
+    /**
+     * Opaque position token: URL-safe base64 of "r1|leadScore|createdAt|id".
+     */
+    static final class Cursor {
+        final double score;
+        final LocalDateTime createdAt;
+        final String id;
+
+        Cursor(double score, LocalDateTime createdAt, String id) {
+            this.score = score;
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+
+        String encode() {
+            String raw = String.join("|", CURSOR_VERSION, Double.toString(score),
+                    createdAt != null ? createdAt.toString() : "", id);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String token) {
+            String[] parts;
+            try {
+                parts = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8).split("\\|", -1);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            if (parts.length != 4 || !CURSOR_VERSION.equals(parts[0]) || parts[3].isEmpty()) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            try {
+                LocalDateTime createdAt = parts[2].isEmpty() ? null : LocalDateTime.parse(parts[2]);
+                return new Cursor(Double.parseDouble(parts[1]), createdAt, parts[3]);
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+}
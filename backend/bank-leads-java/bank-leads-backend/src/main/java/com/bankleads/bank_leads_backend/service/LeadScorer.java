@@ -0,0 +1,12 @@
+package com.bankleads.bank_leads_backend.service;
+
+import com.bankleads.bank_leads_backend.model.Lead;
+
+/**
+ * Scores a lead without writing it. Used where the score is written together with other lead data
+ * (upload score-on-ingest, batch scoring). {@link LeadScoringService} is the default; a replacement bean
+ * has to be marked @Primary.
+ */
+public interface LeadScorer {
+    LeadScoringService.ScoringResult score(Lead lead);
+}
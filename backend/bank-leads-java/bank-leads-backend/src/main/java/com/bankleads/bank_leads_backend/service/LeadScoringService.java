@@ -1,33 +1,75 @@
 package com.bankleads.bank_leads_backend.service;
 
 import com.bankleads.bank_leads_backend.model.Lead;
-import com.bankleads.bank_leads_backend.repository.LeadRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
-public class LeadScoringService {
+public class LeadScoringService implements LeadScorer {
     
-    private final LeadRepository leadRepository;
+    private final MongoTemplate mongoTemplate;
+    private final LightGbmLeadScorer lightGbmLeadScorer;
+    
+    // "rules": fixed points per field; "lightgbm": the model trained by lead-scoring-ml (rules while no model loads)
+    @Value("${app.scoring.engine:rules}")
+    private String engine;
     
-    @Transactional
     public ScoringResult scoreLead(Lead lead) {
         ScoringResult result = calculateLeadScore(lead);
         
         lead.setLeadScore(result.score);
         lead.setScoreReason(result.reason);
+        lead.setScoredAt(LocalDateTime.now());
         
-        leadRepository.save(lead);
+        // Only the score fields are written, so updatedAt stays older than scoredAt (see LeadBatchScoringService)
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(lead.getId())),
+                new Update().set("leadScore", lead.getLeadScore())
+                        .set("scoreReason", lead.getScoreReason())
+                        .set("scoredAt", lead.getScoredAt()),
+                Lead.class);
         
         return result;
     }
     
+    @Override
+    public ScoringResult score(Lead lead) {
+        return calculateLeadScore(lead);
+    }
+    
     public ScoringResult calculateLeadScore(Lead lead) {
+        if ("lightgbm".equalsIgnoreCase(engine)) {
+            Double probability = lightGbmLeadScorer.predict(lead);
+            if (probability != null) {
+                return new ScoringResult(probability, "LightGBM model probability", Collections.emptyMap());
+            }
+        }
+        return calculateRuleScore(lead);
+    }
+    
+    public Map<String, Object> getEngineStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("engine", engine);
+        if ("lightgbm".equalsIgnoreCase(engine)) {
+            // Triggers the reload check, so the status reflects the current model file
+            lightGbmLeadScorer.currentModel();
+            status.put("model", lightGbmLeadScorer.getStatus());
+        }
+        return status;
+    }
+    
+    private ScoringResult calculateRuleScore(Lead lead) {
         double score = 0.0;
         Map<String, ScoringFactor> breakdown = new HashMap<>();
         
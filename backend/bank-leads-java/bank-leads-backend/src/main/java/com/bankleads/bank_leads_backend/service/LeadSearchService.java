@@ -0,0 +1,162 @@
+package com.bankleads.bank_leads_backend.service;
+
+import com.bankleads.bank_leads_backend.model.Lead;
+import com.bankleads.bank_leads_backend.util.LeadSearchTokenizer;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Lead search over the indexed Lead.searchTokens field (see {@link LeadSearchTokenizer}).
+ * Tokens are kept current on every full lead write by {@link LeadSearchTokenListener} and on merge updates by
+ * LeadService; {@link #reindex} backfills leads written before the field existed.
+ */
+@Service
+@RequiredArgsConstructor
+public class LeadSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadSearchService.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    // While the backfill is pending, leads without tokens are also matched with the old regex (a collection scan);
+    // enable only for the backfill window, reindex switches it off once every lead has tokens
+    @Value("${app.search.legacy-fallback:false}")
+    private volatile boolean legacyFallback;
+
+    public static List<String> tokensFor(Lead lead) {
+        return LeadSearchTokenizer.tokens(lead.getName(), lead.getEmail(), lead.getPhoneNumber());
+    }
+
+    /**
+     * Criteria for the {@code q} parameter, or null when the query has no searchable characters.
+     */
+    public Criteria searchCriteria(String q) {
+        List<String> tokens = LeadSearchTokenizer.queryTokens(q);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        Criteria tokenMatch = Criteria.where("searchTokens").all(tokens);
+        if (!legacyFallback) {
+            return tokenMatch;
+        }
+        String quoted = Pattern.quote(q.trim());
+        Criteria legacyMatch = new Criteria().andOperator(
+                Criteria.where("searchTokens").exists(false),
+                new Criteria().orOperator(
+                        Criteria.where("name").regex(quoted, "i"),
+                        Criteria.where("email").regex(quoted, "i"),
+                        Criteria.where("phoneNumber").regex(quoted, "i")));
+        return new Criteria().orOperator(tokenMatch, legacyMatch);
+    }
+
+    /**
+     * $addFields stage computing {@code _relevance} for matches of {@code q}: exact email/phone/name matches first,
+     * then whole-field prefixes, then leads that only match on inner words.
+     */
+    public Document relevanceStage(String q) {
+        String text = q.trim().toLowerCase(Locale.ROOT);
+        String digits = LeadSearchTokenizer.phoneDigits(text);
+
+        List<Object> branches = new ArrayList<>();
+        branches.add(branch(eq(lower("$email"), text), 100));
+        if (digits != null) {
+            branches.add(branch(eq("$phoneNumber", digits), 100));
+        }
+        branches.add(branch(eq(lower("$name"), text), 80));
+        branches.add(branch(startsWith(lower("$name"), text), 40));
+        branches.add(branch(startsWith(lower("$email"), text), 30));
+        if (digits != null) {
+            branches.add(branch(startsWith("$phoneNumber", digits), 30));
+        }
+
+        Document score = new Document("$switch", new Document("branches", branches).append("default", 10));
+        return new Document("$addFields", new Document("_relevance", score));
+    }
+
+    /**
+     * Writes searchTokens for leads that have none (or for every lead when {@code all}), in batches of bulk updates.
+     * Turns the legacy regex fallback off when no lead is left without tokens.
+     */
+    public ReindexResult reindex(boolean all, int batchSize) {
+        ReindexResult result = new ReindexResult();
+        result.setStartedAt(LocalDateTime.now());
+
+        Query query = all ? new Query() : Query.query(Criteria.where("searchTokens").exists(false));
+        query.fields().include("id", "name", "email", "phoneNumber");
+        query.cursorBatchSize(batchSize);
+
+        List<Lead> batch = new ArrayList<>(batchSize);
+        try (Stream<Lead> leads = mongoTemplate.stream(query, Lead.class)) {
+            for (Lead lead : (Iterable<Lead>) leads::iterator) {
+                batch.add(lead);
+                if (batch.size() >= batchSize) {
+                    writeTokens(batch, result);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeTokens(batch, result);
+        }
+
+        if (legacyFallback && !mongoTemplate.exists(Query.query(Criteria.where("searchTokens").exists(false)), Lead.class)) {
+            legacyFallback = false;
+            log.info("Lead search backfill complete, legacy regex fallback disabled");
+        }
+        result.setLegacyFallback(legacyFallback);
+        result.setFinishedAt(LocalDateTime.now());
+        log.info("Lead search reindex: all={}, leads={}", all, result.getLeadsIndexed());
+        return result;
+    }
+
+    private void writeTokens(List<Lead> leads, ReindexResult result) {
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Lead.class);
+        for (Lead lead : leads) {
+            bulkOps.updateOne(Query.query(Criteria.where("_id").is(lead.getId())),
+                    Update.update("searchTokens", tokensFor(lead)));
+        }
+        bulkOps.execute();
+        result.leadsIndexed += leads.size();
+    }
+
+    private static Document branch(Object condition, int score) {
+        return new Document("case", condition).append("then", score);
+    }
+
+    private static Document eq(Object left, Object right) {
+        return new Document("$eq", List.of(left, right));
+    }
+
+    private static Document lower(String field) {
+        return new Document("$toLower", field);
+    }
+
+    private static Document startsWith(Object value, String prefix) {
+        return eq(new Document("$indexOfCP", List.of(value, prefix)), 0);
+    }
+
+    @Data
+    public static class ReindexResult {
+        private long leadsIndexed;
+        private boolean legacyFallback;
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+    }
+}
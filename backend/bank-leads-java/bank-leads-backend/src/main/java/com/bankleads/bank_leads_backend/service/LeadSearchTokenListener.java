@@ -0,0 +1,20 @@
+package com.bankleads.bank_leads_backend.service;
+
+import com.bankleads.bank_leads_backend.model.Lead;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recomputes Lead.searchTokens whenever a whole lead is saved or inserted (including bulk inserts),
+ * so create, update and deduplication paths keep the search index current without extra code.
+ */
+@Component
+public class LeadSearchTokenListener extends AbstractMongoEventListener<Lead> {
+
+    @Override
+    public void onBeforeConvert(BeforeConvertEvent<Lead> event) {
+        Lead lead = event.getSource();
+        lead.setSearchTokens(LeadSearchService.tokensFor(lead));
+    }
+}
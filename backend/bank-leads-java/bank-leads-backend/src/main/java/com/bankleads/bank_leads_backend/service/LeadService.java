@@ -1,21 +1,39 @@
 package com.bankleads.bank_leads_backend.service;
 
 import com.bankleads.bank_leads_backend.model.Lead;
+import com.bankleads.bank_leads_backend.model.LeadMergeEvent;
 import com.bankleads.bank_leads_backend.model.Product;
 import com.bankleads.bank_leads_backend.repository.LeadRepository;
-import com.bankleads.bank_leads_backend.repository.ProductRepository;
+import com.bankleads.bank_leads_backend.util.LeadSearchTokenizer;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.result.UpdateResult;
 import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -26,8 +44,16 @@ public class LeadService {
     
     private final LeadRepository leadRepository;
     private final CanonicalFieldDeduplicationService canonicalFieldDeduplicationService;
-    private final ProductRepository productRepository;
+    private final MetadataCacheService metadataCacheService;
     private final DeduplicationService deduplicationService;
+    private final MongoTemplate mongoTemplate;
+    private final LeadHistoryService leadHistoryService;
+    private final IdentifierLockManager identifierLockManager;
+    private final LeadScorer leadScorer;
+    
+    // Score inserted and merged leads in the same write as their data, so uploads leave no lead unscored
+    @Value("${app.scoring.on-ingest:false}")
+    private boolean scoreOnIngest;
     
     public Optional<Lead> findByLeadId(String leadId) {
         return leadRepository.findByLeadId(leadId);
@@ -35,22 +61,411 @@ public class LeadService {
     
     @Transactional
     public UpsertResult upsertLead(Map<String, String> normalized, UpsertContext ctx) {
+        // Held from lookup to write, so a concurrent upsert with the same identifier sees this lead
+        try (IdentifierLockManager.Locks ignored = identifierLockManager.lock(IdentifierLockManager.keysFor(normalized))) {
+            return upsertLeadLocked(normalized, ctx);
+        }
+    }
+
+    private UpsertResult upsertLeadLocked(Map<String, String> normalized, UpsertContext ctx) {
         // Check for existing lead using per-product deduplication config when available
         Optional<Lead> existingOpt = findExistingLead(normalized, ctx);
         
         if (existingOpt.isPresent()) {
             Lead existing = existingOpt.get();
+            LeadChanges changes = new LeadChanges();
             // Defensive fix: some legacy leads may have leadId null/blank.
             // Mongo has a UNIQUE index on lead_id; null would collide on subsequent saves.
-            ensureLeadId(existing);
-            Lead merged = mergeLeadData(existing, normalized, ctx);
-            ensureLeadId(merged);
+            ensureLeadId(existing, changes);
+            Lead merged = mergeLeadData(existing, normalized, ctx, changes);
             assertLeadIdOrThrow(merged);
-            Lead saved = leadRepository.save(merged);
-            return new UpsertResult("merged", saved);
+            scoreMerged(merged, changes);
+            // Only the filled fields are written; the history entry goes to lead_merge_events
+            UpdateResult written = mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(merged.getId())), changes.toUpdate(), Lead.class);
+            if (written.getMatchedCount() == 0) {
+                // Deleted or absorbed by deduplication after the lookup: nothing was stored, so record no history
+                throw new IllegalStateException("Lead " + merged.getLeadId() + " was removed before the row could be merged into it");
+            }
+            leadHistoryService.append(List.of(historyEvent(LeadMergeEvent.Type.MERGED, merged, ctx)));
+            return new UpsertResult("merged", merged);
         }
         
         // Create new lead
+        Lead newLead = buildNewLead(normalized, ctx);
+        
+        Lead saved;
+        if (scoreInserted(newLead)) {
+            newLead.setId(new ObjectId().toHexString());
+            mongoTemplate.insert(scoredDocument(newLead), mongoTemplate.getCollectionName(Lead.class));
+            saved = newLead;
+        } else {
+            saved = leadRepository.save(newLead);
+        }
+        leadHistoryService.append(List.of(historyEvent(LeadMergeEvent.Type.CREATED, saved, ctx)));
+        return new UpsertResult("inserted", saved);
+    }
+
+    /**
+     * Batch variant of {@link #upsertLead} used by uploads.
+     * Existing leads are resolved with one $in query per identifier type, rows are merged in memory in input
+     * order (so later rows see leads created or filled by earlier ones, as with sequential upserts), and every
+     * touched lead is written once through a single unordered bulk write: an insert for new leads, a $set/$addToSet
+     * of the filled fields for existing ones. One merge event per row is then appended to lead_merge_events.
+     * Results are in input order; rows whose lead could not be built or written are reported as "failed".
+     * The identifiers of every row are locked for the whole batch (see {@link IdentifierLockManager}).
+     */
+    public List<UpsertResult> upsertLeads(List<UpsertItem> items) {
+        if (items.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<String> keys = new HashSet<>();
+        for (UpsertItem item : items) {
+            keys.addAll(IdentifierLockManager.keysFor(item.normalized));
+        }
+        try (IdentifierLockManager.Locks ignored = identifierLockManager.lock(keys)) {
+            return upsertLeadsLocked(items);
+        }
+    }
+
+    /**
+     * Ids of the existing leads carrying any identifier of the given rows, keyed by identifier lock key
+     * (see {@link IdentifierLockManager#keysFor}). Every identifier is looked up whatever the products' dedup
+     * configs, so a row can only merge into leads listed under its own keys.
+     */
+    public Map<String, Set<String>> existingLeadIdsByKey(List<Map<String, String>> rows) {
+        Set<String> emails = new HashSet<>();
+        Set<String> phones = new HashSet<>();
+        Set<String> aadhars = new HashSet<>();
+        for (Map<String, String> normalized : rows) {
+            addIfPresent(true, normalized.get("email"), emails);
+            addIfPresent(true, normalized.get("phone_number"), phones);
+            addIfPresent(true, normalized.get("aadhar_number"), aadhars);
+        }
+        Map<String, Set<String>> idsByKey = new HashMap<>();
+        if (emails.isEmpty() && phones.isEmpty() && aadhars.isEmpty()) {
+            return idsByKey;
+        }
+        Query query = Query.query(new Criteria().orOperator(
+                Criteria.where("email").in(emails),
+                Criteria.where("phoneNumber").in(phones),
+                Criteria.where("aadharNumber").in(aadhars)));
+        query.fields().include("id", "email", "phoneNumber", "aadharNumber");
+        for (Lead lead : mongoTemplate.find(query, Lead.class)) {
+            Map<String, String> identifiers = new HashMap<>();
+            identifiers.put("email", lead.getEmail());
+            identifiers.put("phone_number", lead.getPhoneNumber());
+            identifiers.put("aadhar_number", lead.getAadharNumber());
+            for (String key : IdentifierLockManager.keysFor(identifiers)) {
+                idsByKey.computeIfAbsent(key, k -> new HashSet<>()).add(lead.getId());
+            }
+        }
+        return idsByKey;
+    }
+
+    private List<UpsertResult> upsertLeadsLocked(List<UpsertItem> items) {
+        UpsertResult[] results = new UpsertResult[items.size()];
+        
+        // One dedup config per product in the batch
+        Map<String, DeduplicationService.DeduplicationConfig> configs = new HashMap<>();
+        List<DeduplicationService.DeduplicationConfig> itemConfigs = new ArrayList<>(items.size());
+        Set<String> emails = new HashSet<>();
+        Set<String> phones = new HashSet<>();
+        Set<String> aadhars = new HashSet<>();
+        for (UpsertItem item : items) {
+            String pIdKey = item.ctx.getPId() != null ? item.ctx.getPId().toUpperCase() : "";
+            DeduplicationService.DeduplicationConfig config =
+                    configs.computeIfAbsent(pIdKey, k -> resolveDedupConfig(item.ctx));
+            itemConfigs.add(config);
+            addIfPresent(config.isUseEmail(), item.normalized.get("email"), emails);
+            addIfPresent(config.isUsePhone(), item.normalized.get("phone_number"), phones);
+            addIfPresent(config.isUseAadhar(), item.normalized.get("aadhar_number"), aadhars);
+        }
+        
+        // First lead (natural order) per identifier, matching findByX(...).get(0); one instance per document
+        Map<String, Lead> loaded = new HashMap<>();
+        Map<String, Lead> byEmail = new HashMap<>();
+        Map<String, Lead> byPhone = new HashMap<>();
+        Map<String, Lead> byAadhar = new HashMap<>();
+        if (!emails.isEmpty()) {
+            for (Lead lead : leadRepository.findByEmailIn(emails)) {
+                byEmail.putIfAbsent(lead.getEmail(), loaded.computeIfAbsent(lead.getId(), k -> lead));
+            }
+        }
+        if (!phones.isEmpty()) {
+            for (Lead lead : leadRepository.findByPhoneNumberIn(phones)) {
+                byPhone.putIfAbsent(lead.getPhoneNumber(), loaded.computeIfAbsent(lead.getId(), k -> lead));
+            }
+        }
+        if (!aadhars.isEmpty()) {
+            for (Lead lead : leadRepository.findByAadharNumberIn(aadhars)) {
+                byAadhar.putIfAbsent(lead.getAadharNumber(), loaded.computeIfAbsent(lead.getId(), k -> lead));
+            }
+        }
+        
+        // Merge rows in order; each touched lead ends up as exactly one insert or replace
+        Map<String, PendingWrite> writes = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            UpsertItem item = items.get(i);
+            DeduplicationService.DeduplicationConfig config = itemConfigs.get(i);
+            try {
+                Lead existing = lookup(config.isUseEmail(), item.normalized.get("email"), byEmail);
+                if (existing == null) {
+                    existing = lookup(config.isUsePhone(), item.normalized.get("phone_number"), byPhone);
+                }
+                if (existing == null) {
+                    existing = lookup(config.isUseAadhar(), item.normalized.get("aadhar_number"), byAadhar);
+                }
+                
+                Lead lead;
+                String action;
+                PendingWrite write;
+                if (existing != null) {
+                    Lead target = existing;
+                    write = writes.computeIfAbsent(target.getId(),
+                            k -> new PendingWrite(target, !loaded.containsKey(k)));
+                    ensureLeadId(existing, write.changes);
+                    lead = mergeLeadData(existing, item.normalized, item.ctx, write.changes);
+                    assertLeadIdOrThrow(lead);
+                    action = "merged";
+                } else {
+                    lead = buildNewLead(item.normalized, item.ctx);
+                    lead.setId(new ObjectId().toHexString());
+                    write = new PendingWrite(lead, true);
+                    writes.put(lead.getId(), write);
+                    action = "inserted";
+                }
+                
+                write.rowIndexes.add(i);
+                write.events.add(historyEvent("inserted".equals(action)
+                        ? LeadMergeEvent.Type.CREATED : LeadMergeEvent.Type.MERGED, lead, item.ctx));
+                results[i] = new UpsertResult(action, lead);
+                
+                // Later rows in the batch can match this lead by any identifier it now has
+                register(lead.getEmail(), lead, byEmail);
+                register(lead.getPhoneNumber(), lead, byPhone);
+                register(lead.getAadharNumber(), lead, byAadhar);
+            } catch (Exception e) {
+                results[i] = UpsertResult.failed(e.getMessage() != null ? e.getMessage() : "Processing error");
+            }
+        }
+        
+        if (!writes.isEmpty()) {
+            List<PendingWrite> pending = new ArrayList<>(writes.values());
+            // Scored once per lead, after every row of the batch has been merged into it
+            for (PendingWrite write : pending) {
+                if (write.insert) {
+                    write.scored = scoreInserted(write.lead);
+                } else {
+                    scoreMerged(write.lead, write.changes);
+                }
+            }
+            executeWrites(pending, results);
+            
+            List<LeadMergeEvent> events = new ArrayList<>();
+            for (PendingWrite write : pending) {
+                if (!"failed".equals(results[write.rowIndexes.get(0)].getAction())) {
+                    events.addAll(write.events);
+                }
+            }
+            leadHistoryService.append(events);
+        }
+        return new ArrayList<>(Arrays.asList(results));
+    }
+    
+    private void executeWrites(List<PendingWrite> writes, UpsertResult[] results) {
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Lead.class);
+        for (PendingWrite write : writes) {
+            if (write.insert) {
+                bulkOps.insert(write.scored ? scoredDocument(write.lead) : write.lead);
+            } else {
+                bulkOps.updateOne(Query.query(Criteria.where("_id").is(write.lead.getId())), write.changes.toUpdate());
+            }
+        }
+        
+        int matched;
+        Set<Integer> rejected = new HashSet<>();
+        try {
+            matched = bulkOps.execute().getMatchedCount();
+        } catch (BulkOperationException e) {
+            // Unordered: other writes went through; fail only the rows behind the rejected documents
+            for (BulkWriteError error : e.getErrors()) {
+                rejected.add(error.getIndex());
+                markFailed(writes.get(error.getIndex()), error.getMessage(), results);
+            }
+            matched = e.getResult().getMatchedCount();
+            log.warn("Bulk lead upsert: {} of {} writes failed", e.getErrors().size(), writes.size());
+        } catch (Exception e) {
+            String reason = e.getMessage() != null ? e.getMessage() : "Bulk write failed";
+            for (PendingWrite write : writes) {
+                markFailed(write, reason, results);
+            }
+            log.error("Bulk lead upsert failed: {}", reason, e);
+            return;
+        }
+        
+        List<PendingWrite> updates = new ArrayList<>();
+        for (int i = 0; i < writes.size(); i++) {
+            if (!writes.get(i).insert && !rejected.contains(i)) {
+                updates.add(writes.get(i));
+            }
+        }
+        if (matched < updates.size()) {
+            failMissingTargets(updates, results);
+        }
+    }
+    
+    /**
+     * A lead deleted (or absorbed by deduplication) between the $in lookup and the bulk write matches no document,
+     * so the rows merged into it were not stored. The result only counts matches, so look up which targets are gone.
+     */
+    private void failMissingTargets(List<PendingWrite> updates, UpsertResult[] results) {
+        List<String> ids = new ArrayList<>(updates.size());
+        for (PendingWrite write : updates) {
+            ids.add(write.lead.getId());
+        }
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        query.fields().include("id");
+        Set<String> existing = new HashSet<>();
+        for (Lead lead : mongoTemplate.find(query, Lead.class)) {
+            existing.add(lead.getId());
+        }
+        
+        int missing = 0;
+        for (PendingWrite write : updates) {
+            if (!existing.contains(write.lead.getId())) {
+                markFailed(write, "Lead " + write.lead.getLeadId() + " was removed before the row could be merged into it", results);
+                missing++;
+            }
+        }
+        log.warn("Bulk lead upsert: {} of {} merge targets no longer exist", missing, updates.size());
+    }
+    
+    /** Sets the score on a new lead; false when scoring on ingest is off or the scorer failed. */
+    private boolean scoreInserted(Lead lead) {
+        if (!scoreOnIngest) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (!applyScore(lead, now)) {
+            return false;
+        }
+        lead.setUpdatedAt(now);
+        return true;
+    }
+    
+    /** Adds the rescored lead's score to the $set of its merge, stamped with the same time as updatedAt. */
+    private void scoreMerged(Lead lead, LeadChanges changes) {
+        if (!scoreOnIngest) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (applyScore(lead, now)) {
+            changes.set.put("leadScore", lead.getLeadScore());
+            changes.set.put("scoreReason", lead.getScoreReason());
+            changes.set.put("scoredAt", now);
+            changes.updatedAt = now;
+        }
+    }
+    
+    private boolean applyScore(Lead lead, LocalDateTime now) {
+        try {
+            LeadScoringService.ScoringResult result = leadScorer.score(lead);
+            lead.setLeadScore(result.getScore());
+            lead.setScoreReason(result.getReason());
+            lead.setScoredAt(now);
+            return true;
+        } catch (Exception e) {
+            // The lead is still written; it stays unscored (or keeps its old score) until the next stale rescore
+            log.warn("Scoring on ingest failed for lead {}: {}", lead.getLeadId(), e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * A scored new lead as a plain document. Inserting the entity would let auditing move updatedAt past
+     * scoredAt and the lead would count as stale; the search tokens the entity listener sets are added here.
+     */
+    private Document scoredDocument(Lead lead) {
+        lead.setSearchTokens(LeadSearchService.tokensFor(lead));
+        Document document = new Document();
+        mongoTemplate.getConverter().write(lead, document);
+        return document;
+    }
+    
+    private static void markFailed(PendingWrite write, String reason, UpsertResult[] results) {
+        for (int rowIndex : write.rowIndexes) {
+            results[rowIndex] = UpsertResult.failed(reason);
+        }
+    }
+    
+    private static void addIfPresent(boolean enabled, String value, Set<String> target) {
+        if (enabled && value != null && !value.isEmpty()) {
+            target.add(value);
+        }
+    }
+    
+    private static Lead lookup(boolean enabled, String value, Map<String, Lead> index) {
+        if (!enabled || value == null || value.isEmpty()) {
+            return null;
+        }
+        return index.get(value);
+    }
+    
+    private static void register(String value, Lead lead, Map<String, Lead> index) {
+        if (value != null && !value.isEmpty()) {
+            index.putIfAbsent(value, lead);
+        }
+    }
+    
+    // A lead touched by a batch, the input rows that contributed to it and the field changes for existing leads
+    private static class PendingWrite {
+        final Lead lead;
+        final boolean insert;
+        final List<Integer> rowIndexes = new ArrayList<>();
+        final LeadChanges changes = new LeadChanges();
+        final List<LeadMergeEvent> events = new ArrayList<>();
+        boolean scored;
+        
+        PendingWrite(Lead lead, boolean insert) {
+            this.lead = lead;
+            this.insert = insert;
+        }
+    }
+
+    /**
+     * Fields a merge filled on an existing lead, written as $set / $addToSet instead of replacing the document.
+     */
+    private static class LeadChanges {
+        final Map<String, Object> set = new LinkedHashMap<>();
+        final Set<String> sourcesSeen = new LinkedHashSet<>();
+        final Set<String> productsSeen = new LinkedHashSet<>();
+        final List<String> searchTokens = new ArrayList<>();
+        // Set when the lead was rescored, so scoredAt and updatedAt match
+        LocalDateTime updatedAt;
+        
+        Update toUpdate() {
+            Update update = new Update();
+            set.forEach(update::set);
+            if (!sourcesSeen.isEmpty()) {
+                update.addToSet("sourcesSeen").each(sourcesSeen.toArray());
+            }
+            if (!productsSeen.isEmpty()) {
+                update.addToSet("productsSeen").each(productsSeen.toArray());
+            }
+            if (!searchTokens.isEmpty()) {
+                update.addToSet("searchTokens").each(searchTokens.toArray());
+            }
+            update.set("updatedAt", updatedAt != null ? updatedAt : LocalDateTime.now());
+            return update;
+        }
+    }
+    
+    private static LeadMergeEvent historyEvent(LeadMergeEvent.Type type, Lead lead, UpsertContext ctx) {
+        return LeadHistoryService.event(type, lead.getLeadId(), ctx.sourceId, ctx.pId, ctx.rawRow);
+    }
+
+    private static Lead buildNewLead(Map<String, String> normalized, UpsertContext ctx) {
         Lead newLead = Lead.builder()
                 // leadId generated by builder default / model invariant; do not accept CSV lead_id
                 .name(normalized.get("name"))
@@ -73,28 +488,20 @@ public class LeadService {
                 .build();
 
         // Defensive fix: guarantee leadId is never null/blank before insert.
-        ensureLeadId(newLead);
+        ensureLeadId(newLead, null);
         assertLeadIdOrThrow(newLead);
-        
-        Lead.MergeRecord initialMerge = Lead.MergeRecord.builder()
-                .timestamp(LocalDateTime.now())
-                .sourceId(ctx.sourceId)
-                .pId(ctx.pId)
-                .data(ctx.rawRow)
-                .build();
-        
-        newLead.getMergedFrom().add(initialMerge);
-        
-        Lead saved = leadRepository.save(newLead);
-        return new UpsertResult("inserted", saved);
+        return newLead;
     }
 
-    private static void ensureLeadId(Lead lead) {
+    private static void ensureLeadId(Lead lead, LeadChanges changes) {
         if (lead == null) return;
         String id = lead.getLeadId();
         if (id == null || id.trim().isEmpty()) {
             log.error("Defensive: leadId was null/blank before save; generating new UUID");
             lead.setLeadId(UUID.randomUUID().toString());
+            if (changes != null) {
+                changes.set.put("leadId", lead.getLeadId());
+            }
         }
     }
 
@@ -108,7 +515,7 @@ public class LeadService {
         }
     }
     
-    private Optional<Lead> findExistingLead(Map<String, String> normalized, UpsertContext ctx) {
+    private DeduplicationService.DeduplicationConfig resolveDedupConfig(UpsertContext ctx) {
         // Prefer per-product deduplication config (from Product.deduplicationFields).
         // Fallback to canonical-fields-based global config if product is missing or misconfigured.
         DeduplicationService.DeduplicationConfig config;
@@ -116,7 +523,7 @@ public class LeadService {
         String ctxPId = ctx != null ? ctx.getPId() : null;
         if (ctxPId != null && !ctxPId.isBlank()) {
             String pIdUpper = ctxPId.toUpperCase();
-            Optional<Product> productOpt = productRepository.findByPId(pIdUpper);
+            Optional<Product> productOpt = metadataCacheService.findProduct(pIdUpper);
             if (productOpt.isPresent()) {
                 Product product = productOpt.get();
                 config = deduplicationService.buildConfigFromCanonicalFieldNames(
@@ -132,6 +539,11 @@ public class LeadService {
             config = canonicalFieldDeduplicationService.buildConfigFromCanonicalFields();
             log.debug("No pId in UpsertContext; using canonical-field dedup config");
         }
+        return config;
+    }
+    
+    private Optional<Lead> findExistingLead(Map<String, String> normalized, UpsertContext ctx) {
+        DeduplicationService.DeduplicationConfig config = resolveDedupConfig(ctx);
         
         String email = normalized.get("email");
         String phone = normalized.get("phone_number");
@@ -167,68 +579,97 @@ public class LeadService {
         return Optional.empty();
     }
     
-    private Lead mergeLeadData(Lead existing, Map<String, String> incoming, UpsertContext ctx) {
+    private Lead mergeLeadData(Lead existing, Map<String, String> incoming, UpsertContext ctx, LeadChanges changes) {
         // Fill missing fields
         if ((existing.getName() == null || existing.getName().isEmpty()) && incoming.get("name") != null) {
             existing.setName(incoming.get("name"));
+            changes.set.put("name", existing.getName());
         }
         if ((existing.getPhoneNumber() == null || existing.getPhoneNumber().isEmpty()) && incoming.get("phone_number") != null) {
             existing.setPhoneNumber(incoming.get("phone_number"));
+            changes.set.put("phoneNumber", existing.getPhoneNumber());
         }
         if ((existing.getEmail() == null || existing.getEmail().isEmpty()) && incoming.get("email") != null) {
             existing.setEmail(incoming.get("email"));
+            changes.set.put("email", existing.getEmail());
         }
         if ((existing.getAadharNumber() == null || existing.getAadharNumber().isEmpty()) && incoming.get("aadhar_number") != null) {
             existing.setAadharNumber(incoming.get("aadhar_number"));
+            changes.set.put("aadharNumber", existing.getAadharNumber());
         }
         if (existing.getIncome() == null && ctx.getIncome() != null) {
             existing.setIncome(ctx.getIncome());
+            changes.set.put("income", existing.getIncome());
         }
         if (existing.getCreditScore() == null && ctx.getCreditScore() != null) {
             existing.setCreditScore(ctx.getCreditScore());
+            changes.set.put("creditScore", existing.getCreditScore());
         }
         if (existing.getEmploymentType() == null && ctx.getEmploymentType() != null) {
             existing.setEmploymentType(ctx.getEmploymentType());
+            changes.set.put("employmentType", existing.getEmploymentType());
         }
         if (existing.getLoanAmount() == null && ctx.getLoanAmount() != null) {
             existing.setLoanAmount(ctx.getLoanAmount());
+            changes.set.put("loanAmount", existing.getLoanAmount());
         }
         if (existing.getConverted() == null && ctx.getConverted() != null) {
             existing.setConverted(ctx.getConverted());
+            changes.set.put("converted", existing.getConverted());
         }
         
         // Track source and product history
         if (!existing.getSourcesSeen().contains(ctx.sourceId)) {
             existing.getSourcesSeen().add(ctx.sourceId);
+            changes.sourcesSeen.add(ctx.sourceId);
         }
         if (!existing.getProductsSeen().contains(ctx.pId)) {
             existing.getProductsSeen().add(ctx.pId);
+            changes.productsSeen.add(ctx.pId);
         }
         
-        // Store raw row for audit trail
-        Lead.MergeRecord mergeRecord = Lead.MergeRecord.builder()
-                .timestamp(LocalDateTime.now())
-                .sourceId(ctx.sourceId)
-                .pId(ctx.pId)
-                .data(ctx.rawRow)
-                .build();
-        
-        existing.getMergedFrom().add(mergeRecord);
+        // Only the grams of the filled fields are added, so concurrent merges into the lead keep each other's tokens
+        changes.searchTokens.addAll(LeadSearchTokenizer.tokens((String) changes.set.get("name"),
+                (String) changes.set.get("email"), (String) changes.set.get("phoneNumber")));
         
         return existing;
     }
     
     public static class UpsertResult {
-        private final String action; // "inserted" or "merged"
+        private final String action; // "inserted", "merged" or "failed" (batch only)
         private final Lead lead;
+        private final String error;
         
         public UpsertResult(String action, Lead lead) {
+            this(action, lead, null);
+        }
+        
+        private UpsertResult(String action, Lead lead, String error) {
             this.action = action;
             this.lead = lead;
+            this.error = error;
+        }
+        
+        static UpsertResult failed(String error) {
+            return new UpsertResult("failed", null, error);
         }
         
         public String getAction() { return action; }
         public Lead getLead() { return lead; }
+        public String getError() { return error; }
+    }
+    
+    public static class UpsertItem {
+        private final Map<String, String> normalized;
+        private final UpsertContext ctx;
+        
+        public UpsertItem(Map<String, String> normalized, UpsertContext ctx) {
+            this.normalized = normalized;
+            this.ctx = ctx;
+        }
+        
+        public Map<String, String> getNormalized() { return normalized; }
+        public UpsertContext getCtx() { return ctx; }
     }
     
     public static class UpsertContext {
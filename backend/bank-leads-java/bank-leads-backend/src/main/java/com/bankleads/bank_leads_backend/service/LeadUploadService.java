@@ -0,0 +1,824 @@
+package com.bankleads.bank_leads_backend.service;
+
+import com.bankleads.bank_leads_backend.model.CanonicalField;
+import com.bankleads.bank_leads_backend.model.Source;
+import com.bankleads.bank_leads_backend.model.UploadJob;
+import com.bankleads.bank_leads_backend.repository.LeadRepository;
+import com.bankleads.bank_leads_backend.util.CsvParserUtil;
+import com.bankleads.bank_leads_backend.util.CsvValidationUtil;
+import com.bankleads.bank_leads_backend.util.ExcelParserUtil;
+import com.bankleads.bank_leads_backend.util.LeadNormalizationUtil;
+import com.bankleads.bank_leads_backend.util.RowPlan;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Lead file upload pipeline (parse, validate, batch upsert, per-product deduplication).
+ * Used by the synchronous upload endpoint and by background upload jobs.
+ * <p>
+ * The calling thread only reads the file; chunks are validated and normalized on a shared worker pool and
+ * upserted on a shared write pool. Chunks are written one after another in file order, each split into
+ * identifier-partitioned lanes that are upserted in parallel.
+ */
+@Service
+@RequiredArgsConstructor
+public class LeadUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadUploadService.class);
+    private static final int MAX_REPORTED_FAILED_ROWS = 100;
+
+    private final LeadRepository leadRepository;
+    private final MetadataCacheService metadataCacheService;
+    private final LeadService leadService;
+    private final DeduplicationService deduplicationService;
+
+    @Value("${app.upload.chunk-size:500}")
+    private int uploadChunkSize;
+
+    // "incremental": dedup around each chunk's touched leads; "full": dedup every product after the upload
+    @Value("${app.upload.dedup-mode:incremental}")
+    private String dedupMode;
+
+    @Value("${app.upload.pipeline.workers:4}")
+    private int pipelineWorkers;
+
+    // Upsert lanes per chunk, and the size of the write pool shared by all uploads
+    @Value("${app.upload.pipeline.write-concurrency:4}")
+    private int writeConcurrency;
+
+    // Chunks of one upload that may be read ahead of the write stage
+    @Value("${app.upload.pipeline.max-in-flight-chunks:8}")
+    private int maxInFlightChunks;
+
+    private ThreadPoolExecutor processPool;
+    private ExecutorService writePool;
+
+    @PostConstruct
+    void startPools() {
+        int workers = Math.max(1, pipelineWorkers);
+        // A full queue runs the chunk on the reading thread, which also throttles reading
+        processPool = new ThreadPoolExecutor(workers, workers, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(workers * 2), daemonThreads("upload-process-"),
+                (task, executor) -> {
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("Upload workers are shut down");
+                    }
+                    task.run();
+                });
+        writePool = Executors.newFixedThreadPool(Math.max(1, writeConcurrency), daemonThreads("upload-write-"));
+    }
+
+    @PreDestroy
+    void stopPools() {
+        processPool.shutdownNow();
+        writePool.shutdownNow();
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Receives stage changes and running counters while a file is processed.
+     */
+    public interface ProgressListener {
+        ProgressListener NONE = new ProgressListener() {
+            @Override
+            public void onStage(UploadJob.Stage stage) {
+            }
+
+            @Override
+            public void onProgress(int rowsParsed, int insertedCount, int mergedCount, int failedCount) {
+            }
+        };
+
+        void onStage(UploadJob.Stage stage);
+
+        void onProgress(int rowsParsed, int insertedCount, int mergedCount, int failedCount);
+    }
+
+    /**
+     * Upload rejected because of its input (unknown product/source, bad format, invalid rows).
+     * {@code details} carries the per-row errors reported to the client.
+     */
+    public static class UploadRejectedException extends IllegalArgumentException {
+        private final transient Object details;
+
+        public UploadRejectedException(String message) {
+            this(message, null);
+        }
+
+        public UploadRejectedException(String message, Object details) {
+            super(message);
+            this.details = details;
+        }
+
+        public Object getDetails() { return details; }
+    }
+
+    /**
+     * Checks everything that can be checked before the file is read.
+     */
+    public void validateRequest(String filename, String pId, String sourceId) {
+        String pIdUpper = pId != null ? pId.toUpperCase() : null;
+        String sourceIdUpper = sourceId != null ? sourceId.toUpperCase() : null;
+
+        if (!metadataCacheService.productExists(pIdUpper)) {
+            log.warn("Lead upload rejected: product not found (p_id={})", pIdUpper);
+            throw new UploadRejectedException("Product '" + pId + "' not found");
+        }
+
+        if (!metadataCacheService.sourceExists(sourceIdUpper)) {
+            log.warn("Lead upload rejected: source not found (source_id={})", sourceIdUpper);
+            throw new UploadRejectedException("Source '" + sourceId + "' not found");
+        }
+
+        if (fileType(filename) == null) {
+            throw new UploadRejectedException("Unsupported file format. Use CSV or Excel (.xlsx, .xls)");
+        }
+    }
+
+    /**
+     * Processes an uploaded file stored at {@code file} and returns the upload summary
+     * (totalRows, insertedCount, mergedCount, failedCount, failedRows, deduplication).
+     * @throws UploadRejectedException when the file fails validation
+     */
+    public Map<String, Object> process(Path file, String filename, String pIdUpper, String sourceIdUpper,
+                                       ProgressListener listener) throws IOException {
+        // Fetch related metadata for debugging (does not affect upload behavior)
+        Optional<Source> sourceOpt = metadataCacheService.findSource(sourceIdUpper);
+        List<String> sourceColumns = sourceOpt.map(Source::getColumns).orElse(null);
+        log.info("Source columns for validation/debug (source_id={}): {}", sourceIdUpper, sourceColumns);
+
+        // Log canonical fields (active + required) - currently not enforced for upload
+        List<CanonicalField> canonicalFields = metadataCacheService.getCanonicalFields();
+        List<String> canonicalNames = canonicalFields.stream()
+                .map(CanonicalField::getFieldName)
+                .filter(Objects::nonNull)
+                .toList();
+        List<String> requiredCanonicalNames = canonicalFields.stream()
+                .filter(f -> Boolean.TRUE.equals(f.getIsActive()) && Boolean.TRUE.equals(f.getIsRequired()))
+                .map(CanonicalField::getFieldName)
+                .filter(Objects::nonNull)
+                .toList();
+        log.info("Canonical fields loaded: count={}, names={}", canonicalNames.size(), canonicalNames);
+        log.info("Required canonical fields (active+required): {}", requiredCanonicalNames);
+
+        // Get active canonical fields for validation
+        List<CanonicalField> activeCanonicalFields = canonicalFields.stream()
+                .filter(f -> f.getIsActive() != null && f.getIsActive())
+                .collect(Collectors.toList());
+
+        UploadTally tally = new UploadTally(listener);
+        String type = fileType(filename);
+        if (type == null) {
+            throw new UploadRejectedException("Unsupported file format. Use CSV or Excel (.xlsx, .xls)");
+        }
+
+        if (type.equals("csv")) {
+            ingestCsv(file, activeCanonicalFields, pIdUpper, sourceIdUpper, tally);
+        } else {
+            ingestExcel(file, type.equals("xlsx"), activeCanonicalFields, pIdUpper, sourceIdUpper, tally);
+        }
+
+        if (tally.totalRows == 0) {
+            log.warn("Lead upload rejected: no valid data rows after parsing (p_id={}, source_id={})",
+                    pIdUpper, sourceIdUpper);
+            throw new UploadRejectedException("File contains no valid data rows");
+        }
+
+        Map<String, Object> responseData = new HashMap<>();
+        responseData.put("totalRows", tally.totalRows);
+        responseData.put("insertedCount", tally.insertedCount);
+        responseData.put("mergedCount", tally.mergedCount);
+        responseData.put("failedCount", tally.failedCount);
+        responseData.put("failedRows", tally.failedRows);
+        if (tally.readError != null) {
+            // Partial upload: the counts cover the rows read before the error
+            responseData.put("error", tally.readError);
+        }
+
+        log.info("Lead upload completed: totalRows={}, insertedCount={}, mergedCount={}, failedCount={} (p_id={}, source_id={})",
+                tally.totalRows, tally.insertedCount, tally.mergedCount, tally.failedCount, pIdUpper, sourceIdUpper);
+
+        if (isIncrementalDedup()) {
+            // Already run per chunk in recordResults
+            long finalLeadCount = leadRepository.count();
+            if (tally.dedupError != null) {
+                responseData.put("deduplication", Map.of("error", tally.dedupError));
+            } else {
+                responseData.put("deduplication", Map.of(
+                        "totalLeadsBefore", tally.dedupExamined,
+                        "duplicatesFound", tally.dedupDuplicatesFound,
+                        "mergedCount", tally.dedupMergedCount,
+                        "finalLeadCount", finalLeadCount
+                ));
+            }
+            log.info("Incremental deduplication during upload: examined={}, mergedCount={}, finalLeadCount={}",
+                    tally.dedupExamined, tally.dedupMergedCount, finalLeadCount);
+            return responseData;
+        }
+
+        // Run automatic deduplication per product using each product's configured dedup fields
+        listener.onStage(UploadJob.Stage.DEDUPLICATING);
+        try {
+            Map<String, DeduplicationService.DeduplicationStats> perProductStats =
+                    deduplicationService.executeDeduplicationForAllProducts();
+            long totalLeadsBefore = 0;
+            long duplicatesFound = 0;
+            int dedupMergedCount = 0;
+            Map<String, String> productErrors = new HashMap<>();
+            for (Map.Entry<String, DeduplicationService.DeduplicationStats> entry : perProductStats.entrySet()) {
+                DeduplicationService.DeduplicationStats s = entry.getValue();
+                if (s.getError() != null) {
+                    productErrors.put(entry.getKey(), s.getError());
+                }
+                totalLeadsBefore += s.getTotalLeads();
+                duplicatesFound += s.getDuplicatesFound();
+                dedupMergedCount += s.getMergedCount();
+            }
+            long finalLeadCount = leadRepository.count();
+            Map<String, Object> dedupSummary = new HashMap<>(Map.of(
+                    "totalLeadsBefore", totalLeadsBefore,
+                    "duplicatesFound", duplicatesFound,
+                    "mergedCount", dedupMergedCount,
+                    "finalLeadCount", finalLeadCount
+            ));
+            if (!productErrors.isEmpty()) {
+                // Per product; the other products were deduplicated
+                dedupSummary.put("productErrors", productErrors);
+            }
+            responseData.put("deduplication", dedupSummary);
+            log.info("Automatic per-product deduplication after upload: mergedCount={}, finalLeadCount={}",
+                    dedupMergedCount, finalLeadCount);
+        } catch (Exception e) {
+            log.warn("Automatic deduplication after upload failed (upload succeeded): {}", e.getMessage());
+            responseData.put("deduplication", Map.of(
+                    "error", e.getMessage() != null ? e.getMessage() : "Deduplication failed"
+            ));
+        }
+
+        return responseData;
+    }
+
+    private boolean isIncrementalDedup() {
+        return !"full".equalsIgnoreCase(dedupMode);
+    }
+
+    private static String fileType(String filename) {
+        if (filename == null) return null;
+        String lower = filename.toLowerCase();
+        if (lower.endsWith(".csv")) return "csv";
+        if (lower.endsWith(".xlsx")) return "xlsx";
+        if (lower.endsWith(".xls")) return "xls";
+        return null;
+    }
+
+    private void ingestCsv(Path file, List<CanonicalField> activeCanonicalFields,
+                           String pIdUpper, String sourceIdUpper, UploadTally tally) throws IOException {
+        // Read raw records on this thread; canonical field validation (field count + datatype + required fields)
+        // and normalization run on the worker pool, and valid rows are upserted chunk by chunk
+        tally.listener.onStage(UploadJob.Stage.UPSERTING);
+        CsvParserUtil.ReadResult readResult;
+        AtomicReference<ChunkPipeline> pipeline = new AtomicReference<>();
+        try (InputStream in = Files.newInputStream(file)) {
+            readResult = CsvParserUtil.readCSV(in, activeCanonicalFields, uploadChunkSize, new CsvParserUtil.RecordChunkHandler() {
+                @Override
+                public void onHeader(CsvParserUtil.RecordParser parser) {
+                    // parsedRow.getRow() is the CSV line number (header is row 1)
+                    pipeline.set(new ChunkPipeline(tally, pIdUpper, sourceIdUpper, parser::parse,
+                            parsedRow -> new RowCtx(parsedRow.getRow() - 1, parsedRow.getData(), parsedRow.getData())));
+                }
+
+                @Override
+                public void onChunk(List<CsvParserUtil.RawRecord> records) {
+                    pipeline.get().submit(records);
+                }
+            });
+            if (pipeline.get() != null) {
+                pipeline.get().finish();
+            }
+        } finally {
+            if (pipeline.get() != null) {
+                pipeline.get().awaitQuietly();
+            }
+        }
+
+        ChunkPipeline finished = pipeline.get();
+        if (!readResult.isSuccess() && tally.insertedCount + tally.mergedCount > 0) {
+            // Earlier chunks are already in Mongo: report them with the read error instead of rejecting the upload
+            CsvParserUtil.ParsedRow errorRow = readResult.getErrors().get(0);
+            tally.readError = "CSV could not be read from row " + errorRow.getRow() + ": "
+                    + String.join("; ", errorRow.getErrors());
+            log.warn("CSV upload stopped early after {} rows: {}", readResult.getTotalRows(), tally.readError);
+            return;
+        }
+        CsvParserUtil.StreamResult streamResult = readResult.isSuccess()
+                ? new CsvParserUtil.StreamResult(finished.validCount > 0, readResult.getTotalRows(),
+                        finished.validCount, finished.invalidCount, finished.invalidRows)
+                : new CsvParserUtil.StreamResult(false, 0, 0, 1, readResult.getErrors());
+
+        // Log parse-stage failures (headers and mapping are logged inside CsvParserUtil)
+        if (streamResult.getInvalidCount() > 0) {
+            log.warn("CSV parse produced invalid rows: invalidCount={}", streamResult.getInvalidCount());
+        }
+
+        if (!streamResult.isSuccess() || streamResult.getValidCount() == 0) {
+            log.warn("Lead upload rejected: CSV parse failed or no valid rows (invalidCount={})",
+                    streamResult.getInvalidCount());
+            throw new UploadRejectedException("Failed to parse CSV or no valid rows found",
+                    streamResult.getInvalidRows().stream().map(r -> Map.of(
+                            "rowNumber", r.getRow(),
+                            "reason", String.join("; ", r.getErrors()),
+                            "rawInput", r.getData()
+                    )).collect(Collectors.toList()));
+        }
+    }
+
+    private void ingestExcel(Path file, boolean xlsx, List<CanonicalField> activeCanonicalFields,
+                             String pIdUpper, String sourceIdUpper, UploadTally tally) throws IOException {
+        // Pass 1: validate every row without holding them; any invalid row rejects the whole file
+        tally.listener.onStage(UploadJob.Stage.VALIDATING);
+        ExcelValidationPass validation = new ExcelValidationPass(activeCanonicalFields);
+        int physicalRows = ExcelParserUtil.readSheet(file.toFile(), xlsx, validation);
+
+        if (validation.headerError != null) {
+            throw new UploadRejectedException("Excel validation failed: " + validation.headerError);
+        }
+
+        if (physicalRows < 2) {
+            throw new UploadRejectedException("Excel file has no data rows");
+        }
+
+        if (validation.invalidCount > 0) {
+            log.warn("Lead upload rejected: Excel file has invalid rows (invalidCount={})", validation.invalidCount);
+            throw new UploadRejectedException("Excel file contains validation errors", validation.invalidRows);
+        }
+
+        // Pass 2: re-read and upsert in chunks; rows are already validated, workers only normalize
+        tally.listener.onStage(UploadJob.Stage.UPSERTING);
+        RowPlan plan = validation.plan;
+        ChunkPipeline pipeline = new ChunkPipeline(tally, pIdUpper, sourceIdUpper,
+                (rowIndex, values) -> new CsvParserUtil.ParsedRow(rowIndex, plan.rawRow(values), plan.normalize(values), List.of()),
+                parsedRow -> new RowCtx(parsedRow.getRow(), parsedRow.getRaw(), parsedRow.getData()));
+        try {
+            ExcelParserUtil.readSheet(file.toFile(), xlsx, new ExcelParserUtil.SheetRowHandler() {
+                @Override
+                public boolean onHeader(List<String> headers) {
+                    return true;
+                }
+
+                @Override
+                public boolean onRow(int rowIndex, String[] values) {
+                    pipeline.add(new CsvParserUtil.RawRecord(rowIndex, values));
+                    return true;
+                }
+            });
+            pipeline.finish();
+        } finally {
+            pipeline.awaitQuietly();
+        }
+    }
+
+    // Keep row numbers for logging/debug; does not change core upload logic
+    private static class RowCtx {
+        final int rowNumber; // 1-based excluding header for CSV; Excel uses sheet row number
+        final Map<String, String> raw;
+        final Map<String, String> normalized;
+        RowCtx(int rowNumber, Map<String, String> raw, Map<String, String> normalized) {
+            this.rowNumber = rowNumber;
+            this.raw = raw;
+            this.normalized = normalized;
+        }
+    }
+
+    // Running upsert counters for one upload; only the first MAX_REPORTED_FAILED_ROWS failures are kept.
+    // Updated by the write stage one chunk at a time (each chunk starts after the previous one completed)
+    private static class UploadTally {
+        final ProgressListener listener;
+        int rowsParsed;
+        int totalRows;
+        int insertedCount;
+        int mergedCount;
+        int failedCount;
+        final List<Map<String, Object>> failedRows = new ArrayList<>();
+        // Incremental dedup totals; totalLeadsBefore in the response is the number of leads examined
+        long dedupExamined;
+        long dedupDuplicatesFound;
+        int dedupMergedCount;
+        String dedupError;
+        // Set when reading stopped partway after earlier rows were written
+        String readError;
+
+        UploadTally(ProgressListener listener) {
+            this.listener = listener;
+        }
+
+        void report() {
+            listener.onProgress(rowsParsed, insertedCount, mergedCount, failedCount);
+        }
+    }
+
+    // First Excel pass: header checks plus per-row datatype/identifier validation, keeping only the first failures
+    private static class ExcelValidationPass implements ExcelParserUtil.SheetRowHandler {
+        private final List<CanonicalField> activeCanonicalFields;
+        // Compiled from the header row; reused by the upsert pass
+        RowPlan plan;
+        String headerError;
+        int invalidCount;
+        final List<Map<String, Object>> invalidRows = new ArrayList<>();
+
+        ExcelValidationPass(List<CanonicalField> activeCanonicalFields) {
+            this.activeCanonicalFields = activeCanonicalFields;
+        }
+
+        @Override
+        public boolean onHeader(List<String> headers) {
+            log.info("Excel headers parsed: {}", headers);
+
+            // Validate field count for Excel
+            CsvValidationUtil.ValidationResult countValidation = CsvValidationUtil.validateFieldCount(headers, activeCanonicalFields);
+            if (!countValidation.isValid()) {
+                log.warn("Excel field count validation failed: {}", String.join("; ", countValidation.getErrors()));
+                headerError = String.join("; ", countValidation.getErrors());
+                return false;
+            }
+
+            // Validate headers for Excel
+            CsvValidationUtil.ValidationResult headerValidation = CsvValidationUtil.validateHeaders(headers, activeCanonicalFields);
+            if (!headerValidation.isValid()) {
+                log.warn("Excel header validation failed: {}", String.join("; ", headerValidation.getErrors()));
+                headerError = String.join("; ", headerValidation.getErrors());
+                return false;
+            }
+
+            plan = RowPlan.compile(headers, activeCanonicalFields);
+            log.info("Excel header mapping (original->canonical): {}", plan.getHeaderMapping());
+            return true;
+        }
+
+        @Override
+        public boolean onRow(int rowIndex, String[] values) {
+            // Validate row data types and required fields
+            List<String> validationErrors = plan.validate(values);
+            if (!validationErrors.isEmpty()) {
+                log.warn("Row {} failed Excel datatype validation: {}", rowIndex, String.join("; ", validationErrors));
+                reject(rowIndex, String.join("; ", validationErrors), plan.rawRow(values));
+                return true;
+            }
+
+            Map<String, String> normalized = plan.normalize(values);
+            if (!LeadNormalizationUtil.validateIdentifiers(normalized)) {
+                log.warn("Row {} failed identifier validation (Excel): headers={}, normalizedKeys={}",
+                        rowIndex, plan.getHeaders(), normalized.keySet());
+                reject(rowIndex, "At least one identifier (phone_number, email, or aadhar_number) is required", plan.rawRow(values));
+            }
+            return true;
+        }
+
+        private void reject(int rowIndex, String reason, Map<String, String> rowData) {
+            invalidCount++;
+            if (invalidRows.size() < MAX_REPORTED_FAILED_ROWS) {
+                invalidRows.add(Map.of(
+                        "rowNumber", rowIndex,
+                        "reason", reason,
+                        "rawInput", rowData
+                ));
+            }
+        }
+    }
+
+    /**
+     * Validates/normalizes one raw row; the row is upserted when the returned error list is empty.
+     */
+    private interface RowProcessor {
+        CsvParserUtil.ParsedRow process(int rowNumber, String[] values);
+    }
+
+    // One chunk after the worker stage: valid rows to upsert and rejected rows, both in file order
+    private static class ProcessedChunk {
+        final List<RowCtx> rows = new ArrayList<>();
+        final List<CsvParserUtil.ParsedRow> invalid = new ArrayList<>();
+    }
+
+    /**
+     * Pipeline for one upload. The reading thread submits raw chunks; each is processed on the worker pool,
+     * then written after the previous chunk finished writing, so chunks are applied in file order and
+     * tally updates never overlap. At most max-in-flight-chunks chunks are held at once.
+     */
+    private final class ChunkPipeline {
+        private final UploadTally tally;
+        private final String pIdUpper;
+        private final String sourceIdUpper;
+        private final RowProcessor processor;
+        private final Function<CsvParserUtil.ParsedRow, RowCtx> toRow;
+        private final Semaphore inFlight = new Semaphore(Math.max(1, maxInFlightChunks));
+        private final int chunkSize = Math.max(1, uploadChunkSize);
+        private List<CsvParserUtil.RawRecord> pending = new ArrayList<>();
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+        // Rows rejected by the processor; only the first MAX_REPORTED_FAILED_ROWS are kept
+        int validCount;
+        int invalidCount;
+        final List<CsvParserUtil.ParsedRow> invalidRows = new ArrayList<>();
+
+        ChunkPipeline(UploadTally tally, String pIdUpper, String sourceIdUpper,
+                      RowProcessor processor, Function<CsvParserUtil.ParsedRow, RowCtx> toRow) {
+            this.tally = tally;
+            this.pIdUpper = pIdUpper;
+            this.sourceIdUpper = sourceIdUpper;
+            this.processor = processor;
+            this.toRow = toRow;
+        }
+
+        /** Buffers one record and submits a chunk once chunk-size records are buffered. */
+        void add(CsvParserUtil.RawRecord record) {
+            pending.add(record);
+            if (pending.size() >= chunkSize) {
+                submit(pending);
+                pending = new ArrayList<>();
+            }
+        }
+
+        void submit(List<CsvParserUtil.RawRecord> records) {
+            if (tail.isCompletedExceptionally()) {
+                awaitWritten();
+            }
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Upload interrupted");
+            }
+            CompletableFuture<ProcessedChunk> processed =
+                    CompletableFuture.supplyAsync(() -> process(records), processPool);
+            tail = tail.thenCombine(processed, (ignored, chunk) -> chunk)
+                    .thenCompose(this::write)
+                    .whenComplete((ignored, e) -> inFlight.release());
+        }
+
+        /** Submits any buffered records and waits for every chunk to be written. */
+        void finish() {
+            if (!pending.isEmpty()) {
+                List<CsvParserUtil.RawRecord> last = pending;
+                pending = new ArrayList<>();
+                submit(last);
+            }
+            awaitWritten();
+        }
+
+        private void awaitWritten() {
+            try {
+                tail.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        /** Waits for submitted chunks without rethrowing, so a failed read never leaves writes running. */
+        void awaitQuietly() {
+            try {
+                tail.exceptionally(e -> null).join();
+            } catch (Exception ignored) {
+                // Interrupted or cancelled; nothing left to report
+            }
+        }
+
+        private ProcessedChunk process(List<CsvParserUtil.RawRecord> records) {
+            ProcessedChunk chunk = new ProcessedChunk();
+            for (CsvParserUtil.RawRecord record : records) {
+                CsvParserUtil.ParsedRow parsed = processor.process(record.getRow(), record.getValues());
+                if (parsed.getErrors().isEmpty()) {
+                    chunk.rows.add(toRow.apply(parsed));
+                } else {
+                    chunk.invalid.add(parsed);
+                }
+            }
+            return chunk;
+        }
+
+        private CompletableFuture<Void> write(ProcessedChunk chunk) {
+            invalidCount += chunk.invalid.size();
+            for (CsvParserUtil.ParsedRow row : chunk.invalid) {
+                if (invalidRows.size() >= MAX_REPORTED_FAILED_ROWS) break;
+                invalidRows.add(row);
+            }
+            validCount += chunk.rows.size();
+            tally.rowsParsed += chunk.rows.size();
+            if (chunk.rows.isEmpty()) {
+                tally.report();
+                return CompletableFuture.completedFuture(null);
+            }
+
+            List<List<RowCtx>> lanes = partitionByIdentifier(chunk.rows, Math.max(1, writeConcurrency));
+            List<CompletableFuture<LaneResult>> lanesWritten = new ArrayList<>(lanes.size());
+            for (List<RowCtx> lane : lanes) {
+                lanesWritten.add(CompletableFuture.supplyAsync(
+                        () -> upsertLane(lane, pIdUpper, sourceIdUpper), writePool));
+            }
+            return CompletableFuture.allOf(lanesWritten.toArray(new CompletableFuture<?>[0]))
+                    .thenRun(() -> {
+                        Map<RowCtx, LeadService.UpsertResult> results = new HashMap<>();
+                        Map<RowCtx, String> errors = new HashMap<>();
+                        for (int i = 0; i < lanes.size(); i++) {
+                            LaneResult laneResult = lanesWritten.get(i).join();
+                            List<RowCtx> lane = lanes.get(i);
+                            for (int j = 0; j < lane.size(); j++) {
+                                if (laneResult.results != null) {
+                                    results.put(lane.get(j), laneResult.results.get(j));
+                                } else {
+                                    errors.put(lane.get(j), laneResult.batchError);
+                                }
+                            }
+                        }
+                        recordResults(chunk.rows, results, errors, tally);
+                    });
+        }
+    }
+
+    // Upsert outcome of one lane: per-row results, or the error that failed the whole batch
+    private static class LaneResult {
+        final List<LeadService.UpsertResult> results;
+        final String batchError;
+
+        LaneResult(List<LeadService.UpsertResult> results, String batchError) {
+            this.results = results;
+            this.batchError = batchError;
+        }
+    }
+
+    /**
+     * Splits a chunk into at most {@code laneCount} lanes. Rows linked by a shared email, phone or aadhar, or by an
+     * existing lead that carries identifiers of both (one row matching it by email, another by phone), directly
+     * or through other rows, stay in one lane in file order. Rows of a chunk therefore never merge into the same
+     * lead from two lanes, nor contend for the same identifier locks; each group's lane comes from the hash of
+     * its first row's first identifier. Existing leads are resolved once per chunk, after the previous chunk was
+     * written; a lead written meanwhile by another upload can still be merged from two lanes, which the
+     * fill-only and $addToSet merge updates tolerate.
+     */
+    private List<List<RowCtx>> partitionByIdentifier(List<RowCtx> rows, int laneCount) {
+        int n = rows.size();
+        if (laneCount <= 1 || n < 2) {
+            return List.of(rows);
+        }
+
+        List<Map<String, String>> normalizedRows = new ArrayList<>(n);
+        for (RowCtx row : rows) {
+            normalizedRows.add(row.normalized);
+        }
+        Map<String, Set<String>> leadIdsByKey;
+        try {
+            leadIdsByKey = leadService.existingLeadIdsByKey(normalizedRows);
+        } catch (RuntimeException e) {
+            // Without the matched leads the lanes could overlap; write the chunk as one batch instead
+            log.warn("Existing-lead lookup for {} rows failed, writing them in one lane: {}", n, e.getMessage());
+            return List.of(rows);
+        }
+
+        DuplicateGroupFinder.UnionFind unionFind = new DuplicateGroupFinder.UnionFind(n);
+        Map<String, Integer> firstByKey = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            for (String key : IdentifierLockManager.keysFor(rows.get(i).normalized)) {
+                union(unionFind, firstByKey, key, i);
+                for (String leadId : leadIdsByKey.getOrDefault(key, Set.of())) {
+                    union(unionFind, firstByKey, "lead:" + leadId, i);
+                }
+            }
+        }
+
+        List<List<RowCtx>> lanes = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            lanes.add(new ArrayList<>());
+        }
+        Map<Integer, Integer> laneByRoot = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            RowCtx row = rows.get(i);
+            int lane = laneByRoot.computeIfAbsent(unionFind.find(i), root -> {
+                List<String> keys = IdentifierLockManager.keysFor(row.normalized);
+                int hash = keys.isEmpty() ? row.rowNumber : keys.get(0).hashCode();
+                return Math.floorMod(hash, laneCount);
+            });
+            lanes.get(lane).add(row);
+        }
+        lanes.removeIf(List::isEmpty);
+        return lanes;
+    }
+
+    private static void union(DuplicateGroupFinder.UnionFind unionFind, Map<String, Integer> firstByKey,
+                              String key, int row) {
+        Integer first = firstByKey.putIfAbsent(key, row);
+        if (first != null) {
+            unionFind.union(first, row);
+        }
+    }
+
+    private LaneResult upsertLane(List<RowCtx> rows, String pIdUpper, String sourceIdUpper) {
+        List<LeadService.UpsertItem> items = new ArrayList<>(rows.size());
+        for (RowCtx rowCtx : rows) {
+            LeadService.UpsertContext ctx = new LeadService.UpsertContext(
+                    pIdUpper,
+                    sourceIdUpper,
+                    rowCtx.normalized
+            );
+            items.add(new LeadService.UpsertItem(rowCtx.normalized, ctx));
+        }
+        
+        // One batched lookup + bulk write per lane; results come back in row order
+        try {
+            return new LaneResult(leadService.upsertLeads(items), null);
+        } catch (Exception e) {
+            String batchError = e.getMessage() != null ? e.getMessage() : "Processing error";
+            log.error("Upsert batch of {} rows failed: {}", rows.size(), batchError, e);
+            return new LaneResult(null, batchError);
+        }
+    }
+
+    private void recordResults(List<RowCtx> rows, Map<RowCtx, LeadService.UpsertResult> results,
+                               Map<RowCtx, String> batchErrors, UploadTally tally) {
+        Set<String> touchedLeadIds = new HashSet<>();
+        for (RowCtx rowCtx : rows) {
+            LeadService.UpsertResult result = results.get(rowCtx);
+            tally.totalRows++;
+            if (result != null && "inserted".equals(result.getAction())) {
+                tally.insertedCount++;
+                touchedLeadIds.add(result.getLead().getId());
+            } else if (result != null && "merged".equals(result.getAction())) {
+                tally.mergedCount++;
+                touchedLeadIds.add(result.getLead().getId());
+            } else {
+                tally.failedCount++;
+                String batchError = batchErrors.get(rowCtx);
+                String reason = result != null && result.getError() != null ? result.getError()
+                        : batchError != null ? batchError : "Processing error";
+                log.error("Row {} failed during upsert: {}", rowCtx.rowNumber, reason);
+                if (tally.failedRows.size() < MAX_REPORTED_FAILED_ROWS) {
+                    tally.failedRows.add(Map.of(
+                            "rowNumber", rowCtx.rowNumber,           // Frontend expects rowNumber
+                            "reason", reason,
+                            "rawInput", rowCtx.raw                   // For debugging
+                    ));
+                }
+            }
+        }
+        if (isIncrementalDedup() && tally.dedupError == null && !touchedLeadIds.isEmpty()) {
+            dedupChunk(touchedLeadIds, tally);
+        }
+        tally.report();
+    }
+
+    private void dedupChunk(Set<String> touchedLeadIds, UploadTally tally) {
+        try {
+            Map<String, DeduplicationService.DeduplicationStats> perProductStats =
+                    deduplicationService.executeIncrementalDeduplication(touchedLeadIds);
+            for (DeduplicationService.DeduplicationStats s : perProductStats.values()) {
+                tally.dedupExamined += s.getTotalLeads();
+                tally.dedupDuplicatesFound += s.getDuplicatesFound();
+                tally.dedupMergedCount += s.getMergedCount();
+            }
+        } catch (Exception e) {
+            // Upserts are kept; stop deduplicating for the rest of this upload
+            log.warn("Incremental deduplication failed (upload continues): {}", e.getMessage());
+            tally.dedupError = e.getMessage() != null ? e.getMessage() : "Deduplication failed";
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.bankleads.bank_leads_backend.service;
+
+import com.bankleads.bank_leads_backend.model.Lead;
+import com.bankleads.bank_leads_backend.util.LeadFeatures;
+import com.bankleads.bank_leads_backend.util.LightGbmModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Serves the LightGBM model trained by lead-scoring-ml/train.py from app.scoring.model-path.
+ * The file is checked for changes at most every app.scoring.reload-check-ms and re-parsed when its
+ * modification time or size changes; a model that fails to load keeps the previous one in service.
+ */
+@Service
+public class LightGbmLeadScorer {
+
+    private static final Logger log = LoggerFactory.getLogger(LightGbmLeadScorer.class);
+
+    // Reused per thread so scoring a lead allocates nothing
+    private static final ThreadLocal<double[]> FEATURES =
+            ThreadLocal.withInitial(() -> new double[LeadFeatures.FEATURE_NAMES.size()]);
+
+    @Value("${app.scoring.model-path:../../../lead-scoring-ml/models/lead_score_model.txt}")
+    private String modelPath;
+
+    @Value("${app.scoring.reload-check-ms:10000}")
+    private long reloadCheckMs;
+
+    private volatile LightGbmModel model;
+    private volatile long lastCheck;
+    private FileTime loadedModifiedTime;
+    private long loadedSize = -1;
+    private String lastError;
+
+    /**
+     * Probability for the lead, or null when no model could be loaded.
+     */
+    public Double predict(Lead lead) {
+        LightGbmModel current = currentModel();
+        if (current == null) {
+            return null;
+        }
+        double[] features = FEATURES.get();
+        LeadFeatures.extract(lead, LocalDateTime.now(), features);
+        return current.predict(features);
+    }
+
+    public LightGbmModel currentModel() {
+        long now = System.currentTimeMillis();
+        if (now - lastCheck >= reloadCheckMs) {
+            reloadIfChanged(now);
+        }
+        return model;
+    }
+
+    private synchronized void reloadIfChanged(long now) {
+        if (now - lastCheck < reloadCheckMs) {
+            return; // another thread just checked
+        }
+        lastCheck = now;
+        Path path = Path.of(modelPath);
+        try {
+            if (!Files.exists(path)) {
+                if (lastError == null) {
+                    lastError = "Model file not found: " + path.toAbsolutePath();
+                    log.warn("LightGBM scoring: {}", lastError);
+                }
+                return;
+            }
+            FileTime modified = Files.getLastModifiedTime(path);
+            long size = Files.size(path);
+            if (modified.equals(loadedModifiedTime) && size == loadedSize) {
+                return;
+            }
+            LightGbmModel loaded;
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                loaded = LightGbmModel.parse(reader, LeadFeatures.FEATURE_NAMES);
+            }
+            model = loaded;
+            loadedModifiedTime = modified;
+            loadedSize = size;
+            lastError = null;
+            log.info("LightGBM scoring model loaded: path={}, trees={}", path, loaded.getTreeCount());
+        } catch (Exception e) {
+            // Remember the failed version so it is not re-parsed on every check
+            try {
+                loadedModifiedTime = Files.getLastModifiedTime(path);
+                loadedSize = Files.size(path);
+            } catch (Exception ignored) {
+                // File went away; retried on the next check
+            }
+            lastError = e.getMessage();
+            log.error("LightGBM scoring model at {} could not be loaded (keeping previous model): {}", path, e.getMessage());
+        }
+    }
+
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("modelPath", modelPath);
+        status.put("loaded", model != null);
+        status.put("trees", model != null ? model.getTreeCount() : 0);
+        status.put("modifiedAt", loadedModifiedTime != null ? loadedModifiedTime.toString() : null);
+        status.put("error", lastError);
+        return status;
+    }
+}
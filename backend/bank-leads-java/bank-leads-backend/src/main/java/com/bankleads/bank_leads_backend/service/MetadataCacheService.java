@@ -0,0 +1,177 @@
+package com.bankleads.bank_leads_backend.service;
+
+import com.bankleads.bank_leads_backend.model.CanonicalField;
+import com.bankleads.bank_leads_backend.model.Product;
+import com.bankleads.bank_leads_backend.model.Source;
+import com.bankleads.bank_leads_backend.repository.CanonicalFieldRepository;
+import com.bankleads.bank_leads_backend.repository.ProductRepository;
+import com.bankleads.bank_leads_backend.repository.SourceRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Read-through cache for the small metadata collections (products, sources, canonical fields) that are read on
+ * every upsert, upload and lead listing. Entries expire after a TTL; writes through the admin controllers
+ * invalidate explicitly, and {@link MetadataChangeStreamListener} can invalidate on changes made by other nodes.
+ * Returned entities are shared: use them read-only and load from the repository when modifying.
+ */
+@Service
+public class MetadataCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(MetadataCacheService.class);
+    private static final String ALL = "all";
+
+    private final ProductRepository productRepository;
+    private final SourceRepository sourceRepository;
+    private final CanonicalFieldRepository canonicalFieldRepository;
+
+    private final Cache<String, Optional<Product>> products;
+    private final Cache<String, Optional<Source>> sources;
+    private final Cache<String, List<CanonicalField>> canonicalFields;
+
+    public MetadataCacheService(ProductRepository productRepository,
+                                SourceRepository sourceRepository,
+                                CanonicalFieldRepository canonicalFieldRepository,
+                                @Value("${app.cache.metadata.ttl-seconds:300}") long ttlSeconds,
+                                @Value("${app.cache.metadata.max-size:10000}") long maxSize) {
+        this.productRepository = productRepository;
+        this.sourceRepository = sourceRepository;
+        this.canonicalFieldRepository = canonicalFieldRepository;
+        this.products = newCache(ttlSeconds, maxSize);
+        this.sources = newCache(ttlSeconds, maxSize);
+        this.canonicalFields = newCache(ttlSeconds, 1);
+    }
+
+    private static <K, V> Cache<K, V> newCache(long ttlSeconds, long maxSize) {
+        return Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Product by pId (already upper-cased); unknown ids are cached as empty until invalidated or expired.
+     */
+    public Optional<Product> findProduct(String pId) {
+        if (pId == null) return Optional.empty();
+        return products.get(pId, productRepository::findByPId);
+    }
+
+    public boolean productExists(String pId) {
+        return findProduct(pId).isPresent();
+    }
+
+    /**
+     * Products for the given pIds; misses are loaded with a single $in query.
+     */
+    public Map<String, Product> findProducts(Collection<String> pIds) {
+        Map<String, Optional<Product>> cached = products.getAll(pIds, missing -> {
+            Map<String, Optional<Product>> loaded = new HashMap<>();
+            missing.forEach(pId -> loaded.put(pId, Optional.empty()));
+            for (Product product : productRepository.findByPIdIn(Set.copyOf(missing))) {
+                loaded.put(product.getPId(), Optional.of(product));
+            }
+            return loaded;
+        });
+        return present(cached);
+    }
+
+    public Optional<Source> findSource(String sId) {
+        if (sId == null) return Optional.empty();
+        return sources.get(sId, sourceRepository::findBySourceId);
+    }
+
+    public boolean sourceExists(String sId) {
+        return findSource(sId).isPresent();
+    }
+
+    public Map<String, Source> findSources(Collection<String> sIds) {
+        Map<String, Optional<Source>> cached = sources.getAll(sIds, missing -> {
+            Map<String, Optional<Source>> loaded = new HashMap<>();
+            missing.forEach(sId -> loaded.put(sId, Optional.empty()));
+            for (Source source : sourceRepository.findBySIdIn(Set.copyOf(missing))) {
+                loaded.put(source.getSId(), Optional.of(source));
+            }
+            return loaded;
+        });
+        return present(cached);
+    }
+
+    /**
+     * All canonical fields (first 1000, as the upload has always read them).
+     */
+    public List<CanonicalField> getCanonicalFields() {
+        return canonicalFields.get(ALL, k -> List.copyOf(canonicalFieldRepository.findAll(PageRequest.of(0, 1000)).getContent()));
+    }
+
+    public void invalidateProducts() {
+        products.invalidateAll();
+        log.debug("Product metadata cache invalidated");
+    }
+
+    public void invalidateSources() {
+        sources.invalidateAll();
+        log.debug("Source metadata cache invalidated");
+    }
+
+    public void invalidateCanonicalFields() {
+        canonicalFields.invalidateAll();
+        log.debug("Canonical field metadata cache invalidated");
+    }
+
+    public void invalidateAll() {
+        invalidateProducts();
+        invalidateSources();
+        invalidateCanonicalFields();
+    }
+
+    /**
+     * Hit/miss counters per cache.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("products", describe(products));
+        stats.put("sources", describe(sources));
+        stats.put("canonicalFields", describe(canonicalFields));
+        return stats;
+    }
+
+    /**
+     * Size, hit/miss, load and eviction counters of a Caffeine cache built with recordStats().
+     */
+    public static Map<String, Object> describe(Cache<?, ?> cache) {
+        CacheStats s = cache.stats();
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("size", cache.estimatedSize());
+        data.put("hits", s.hitCount());
+        data.put("misses", s.missCount());
+        data.put("hitRate", s.hitRate());
+        data.put("loads", s.loadCount());
+        data.put("loadFailures", s.loadFailureCount());
+        data.put("averageLoadMillis", s.averageLoadPenalty() / 1_000_000.0);
+        data.put("evictions", s.evictionCount());
+        return data;
+    }
+
+    private static <V> Map<String, V> present(Map<String, Optional<V>> cached) {
+        Map<String, V> result = new HashMap<>();
+        cached.forEach((key, value) -> value.ifPresent(v -> result.put(key, v)));
+        return result;
+    }
+}
@@ -0,0 +1,60 @@
+package com.bankleads.bank_leads_backend.service;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.MessageListener;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalidates {@link MetadataCacheService} when the products, sources or canonical_fields collections change,
+ * so writes made on other nodes are seen before the TTL expires. Requires a replica set (change streams);
+ * enable with app.cache.metadata.change-stream.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cache.metadata.change-stream.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class MetadataChangeStreamListener {
+
+    private static final Logger log = LoggerFactory.getLogger(MetadataChangeStreamListener.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MetadataCacheService metadataCacheService;
+
+    private MessageListenerContainer container;
+
+    @PostConstruct
+    void start() {
+        container = new DefaultMessageListenerContainer(mongoTemplate);
+        watch("products", metadataCacheService::invalidateProducts);
+        watch("sources", metadataCacheService::invalidateSources);
+        watch("canonical_fields", metadataCacheService::invalidateCanonicalFields);
+        container.start();
+        log.info("Metadata cache change stream listener started");
+    }
+
+    private void watch(String collection, Runnable invalidate) {
+        // The no-arg builder() is raw; starting from the listener keeps the request typed
+        MessageListener<ChangeStreamDocument<Document>, Document> listener = message -> invalidate.run();
+        ChangeStreamRequest<Document> request = ChangeStreamRequest.builder(listener)
+                .collection(collection)
+                .build();
+        container.register(request, Document.class);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (container != null) {
+            container.stop();
+        }
+    }
+}
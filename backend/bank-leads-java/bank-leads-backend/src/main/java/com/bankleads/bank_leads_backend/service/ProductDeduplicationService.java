@@ -34,6 +34,7 @@ public class ProductDeduplicationService {
     private final ProductRepository productRepository;
     private final LeadRepository leadRepository;
     private final MongoTemplate mongoTemplate;
+    private final MetadataCacheService metadataCacheService;
 
     /**
      * Normalizes product name for grouping (trim, lower case).
@@ -102,6 +103,8 @@ public class ProductDeduplicationService {
 
             // Delete duplicate products
             productRepository.deleteAll(toRemove);
+            metadataCacheService.invalidateProducts();
+            metadataCacheService.invalidateSources();
             productsRemoved += toRemove.size();
 
             mergeDetails.add(new ProductMergeDetail(
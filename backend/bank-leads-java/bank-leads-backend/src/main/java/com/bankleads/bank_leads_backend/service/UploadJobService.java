@@ -0,0 +1,369 @@
+package com.bankleads.bank_leads_backend.service;
+
+import com.bankleads.bank_leads_backend.model.UploadJob;
+import com.bankleads.bank_leads_backend.repository.UploadJobRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs lead uploads in the background on a bounded worker pool.
+ * The uploaded file is spooled to a temp file, the job document is updated as rows are processed,
+ * and progress is pushed to any SSE subscribers of the job.
+ */
+@Service
+@RequiredArgsConstructor
+public class UploadJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadJobService.class);
+
+    // Temp files keep only a known upload extension; anything else from the client filename becomes .tmp
+    private static final Set<String> UPLOAD_SUFFIXES = Set.of(".csv", ".xlsx", ".xls");
+
+    private final UploadJobRepository uploadJobRepository;
+    private final LeadUploadService leadUploadService;
+
+    @Value("${app.upload.jobs.workers:2}")
+    private int workers;
+
+    @Value("${app.upload.jobs.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${app.upload.jobs.progress-interval-ms:1000}")
+    private long progressIntervalMs;
+
+    @Value("${app.upload.jobs.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    @Value("${app.upload.jobs.recover-on-startup:true}")
+    private boolean recoverOnStartup;
+
+    // Jobs running on this instance; finished jobs are read from Mongo
+    private final Map<String, UploadJob> activeJobs = new ConcurrentHashMap<>();
+    private final Map<String, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+    private LocalDateTime startedAt;
+
+    @PostConstruct
+    void start() {
+        startedAt = LocalDateTime.now();
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "upload-job-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Stores the file and queues it for processing.
+     * @throws IllegalStateException when the job queue is full
+     */
+    public UploadJob submit(MultipartFile file, String pIdUpper, String sourceIdUpper) throws IOException {
+        String filename = file.getOriginalFilename();
+        Path tempFile = Files.createTempFile("lead-upload-", suffix(filename));
+        file.transferTo(tempFile);
+
+        UploadJob job = uploadJobRepository.save(UploadJob.builder()
+                .filename(filename)
+                .pId(pIdUpper)
+                .sourceId(sourceIdUpper)
+                .status(UploadJob.Status.QUEUED)
+                .stage(UploadJob.Stage.QUEUED)
+                .tempFile(tempFile.toString())
+                .createdAt(LocalDateTime.now())
+                .build());
+        activeJobs.put(job.getId(), job);
+
+        try {
+            executor.execute(() -> run(job, tempFile));
+        } catch (RejectedExecutionException e) {
+            activeJobs.remove(job.getId());
+            Files.deleteIfExists(tempFile);
+            synchronized (job) {
+                job.setStatus(UploadJob.Status.FAILED);
+                job.setErrorMessage("Upload queue is full");
+                job.setFinishedAt(LocalDateTime.now());
+            }
+            uploadJobRepository.save(snapshot(job));
+            throw new IllegalStateException("Upload queue is full, try again later");
+        }
+
+        log.info("Upload job queued: jobId={}, filename={}, p_id={}, source_id={}",
+                job.getId(), filename, pIdUpper, sourceIdUpper);
+        return snapshot(job);
+    }
+
+    /**
+     * Jobs a previous run left QUEUED or RUNNING, whose worker and queue were lost with it. A queued job whose
+     * temp file is still there is queued again; the others are marked FAILED and their temp files deleted
+     * (a running job may have stored part of its rows). Only jobs created before this instance started are
+     * touched; turn app.upload.jobs.recover-on-startup off when several instances share upload_jobs.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverInterruptedJobs() {
+        if (!recoverOnStartup) {
+            return;
+        }
+        List<UploadJob> interrupted;
+        try {
+            interrupted = uploadJobRepository.findByStatusIn(List.of(UploadJob.Status.QUEUED, UploadJob.Status.RUNNING));
+        } catch (RuntimeException e) {
+            log.error("Failed to look up interrupted upload jobs: {}", e.getMessage());
+            return;
+        }
+        for (UploadJob job : interrupted) {
+            if (job.getCreatedAt() != null && !job.getCreatedAt().isBefore(startedAt)) {
+                continue;
+            }
+            Path tempFile = job.getTempFile() != null ? Path.of(job.getTempFile()) : null;
+            if (job.getStatus() == UploadJob.Status.QUEUED && tempFile != null && Files.exists(tempFile)) {
+                activeJobs.put(job.getId(), job);
+                try {
+                    executor.execute(() -> run(job, tempFile));
+                    log.info("Upload job re-queued after restart: jobId={}", job.getId());
+                    continue;
+                } catch (RejectedExecutionException e) {
+                    activeJobs.remove(job.getId());
+                }
+            }
+            failInterrupted(job, tempFile);
+        }
+    }
+
+    private void failInterrupted(UploadJob job, Path tempFile) {
+        job.setStatus(UploadJob.Status.FAILED);
+        job.setErrorMessage("Interrupted by a server restart");
+        job.setFinishedAt(LocalDateTime.now());
+        try {
+            uploadJobRepository.save(job);
+            log.warn("Upload job interrupted by a restart marked failed: jobId={}, rowsParsed={}",
+                    job.getId(), job.getRowsParsed());
+        } catch (RuntimeException e) {
+            log.error("Failed to mark interrupted upload job {} failed: {}", job.getId(), e.getMessage());
+            return;
+        }
+        deleteTempFile(tempFile);
+    }
+
+    /**
+     * Current state of a job. Running jobs are returned as a copy, so callers never serialize the instance
+     * the worker is updating.
+     */
+    public Optional<UploadJob> getJob(String jobId) {
+        UploadJob active = activeJobs.get(jobId);
+        return active != null ? Optional.of(snapshot(active)) : uploadJobRepository.findById(jobId);
+    }
+
+    // Every write to a job's fields happens while holding the job's monitor
+    private static UploadJob snapshot(UploadJob job) {
+        synchronized (job) {
+            return job.toBuilder().build();
+        }
+    }
+
+    /**
+     * SSE stream of "progress" events for a job; completes once the job has finished.
+     */
+    public SseEmitter subscribe(String jobId) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        // Register before reading the job so a job finishing in between still completes this emitter
+        emitters.compute(jobId, (k, jobEmitters) -> {
+            List<SseEmitter> registered = jobEmitters != null ? jobEmitters : new CopyOnWriteArrayList<>();
+            registered.add(emitter);
+            return registered;
+        });
+        emitter.onCompletion(() -> unregister(jobId, emitter));
+        emitter.onTimeout(() -> unregister(jobId, emitter));
+        emitter.onError(e -> unregister(jobId, emitter));
+
+        UploadJob job = getJob(jobId).orElse(null);
+        if (job == null) {
+            unregister(jobId, emitter);
+            throw new IllegalArgumentException("Upload job '" + jobId + "' not found");
+        }
+
+        send(emitter, job);
+        if (job.isFinished()) {
+            // Nothing more will be published; drop the registration now rather than on the async completion
+            unregister(jobId, emitter);
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    // Removes the job's entry with its last emitter, so finished or abandoned jobs leave nothing behind
+    private void unregister(String jobId, SseEmitter emitter) {
+        emitters.computeIfPresent(jobId, (k, jobEmitters) -> {
+            jobEmitters.remove(emitter);
+            return jobEmitters.isEmpty() ? null : jobEmitters;
+        });
+    }
+
+    private void run(UploadJob job, Path tempFile) {
+        try {
+            synchronized (job) {
+                job.setStatus(UploadJob.Status.RUNNING);
+                job.setStartedAt(LocalDateTime.now());
+            }
+            persist(job);
+
+            Map<String, Object> result = leadUploadService.process(tempFile, job.getFilename(),
+                    job.getPId(), job.getSourceId(), new JobProgress(job));
+            synchronized (job) {
+                job.setResult(result);
+                job.setStatus(UploadJob.Status.COMPLETED);
+                job.setStage(UploadJob.Stage.DONE);
+            }
+            log.info("Upload job completed: jobId={}", job.getId());
+        } catch (LeadUploadService.UploadRejectedException e) {
+            synchronized (job) {
+                job.setStatus(UploadJob.Status.FAILED);
+                job.setErrorMessage(e.getMessage());
+                job.setErrorDetails(e.getDetails());
+            }
+            log.warn("Upload job rejected: jobId={}, reason={}", job.getId(), e.getMessage());
+        } catch (Exception e) {
+            synchronized (job) {
+                job.setStatus(UploadJob.Status.FAILED);
+                job.setErrorMessage("Failed to process file: " + e.getMessage());
+            }
+            log.error("Upload job failed: jobId={}: {}", job.getId(), e.getMessage(), e);
+        } finally {
+            synchronized (job) {
+                job.setFinishedAt(LocalDateTime.now());
+            }
+            try {
+                persist(job);
+            } catch (Exception e) {
+                log.error("Failed to store final state of upload job {}: {}", job.getId(), e.getMessage());
+            }
+            activeJobs.remove(job.getId());
+            completeEmitters(job.getId());
+            deleteTempFile(tempFile);
+        }
+    }
+
+    private static void deleteTempFile(Path tempFile) {
+        if (tempFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            log.warn("Failed to delete upload temp file {}: {}", tempFile, e.getMessage());
+        }
+    }
+
+    private void persist(UploadJob job) {
+        UploadJob snapshot = snapshot(job);
+        uploadJobRepository.save(snapshot);
+        publish(snapshot);
+    }
+
+    private void publish(UploadJob job) {
+        List<SseEmitter> jobEmitters = emitters.get(job.getId());
+        if (jobEmitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : jobEmitters) {
+            send(emitter, job);
+        }
+    }
+
+    private void send(SseEmitter emitter, UploadJob job) {
+        try {
+            emitter.send(SseEmitter.event().name("progress").data(job));
+        } catch (Exception e) {
+            // Client went away
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void completeEmitters(String jobId) {
+        List<SseEmitter> jobEmitters = emitters.remove(jobId);
+        if (jobEmitters != null) {
+            jobEmitters.forEach(SseEmitter::complete);
+        }
+    }
+
+    private static String suffix(String filename) {
+        if (filename == null) return ".tmp";
+        int dot = filename.lastIndexOf('.');
+        String suffix = dot >= 0 ? filename.substring(dot).toLowerCase(Locale.ROOT) : "";
+        return UPLOAD_SUFFIXES.contains(suffix) ? suffix : ".tmp";
+    }
+
+    // Applies pipeline progress to the job; counters are stored at most once per progress interval
+    private class JobProgress implements LeadUploadService.ProgressListener {
+        private final UploadJob job;
+        private long lastPersisted;
+
+        JobProgress(UploadJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public void onStage(UploadJob.Stage stage) {
+            synchronized (job) {
+                job.setStage(stage);
+            }
+            persist(job);
+            lastPersisted = System.currentTimeMillis();
+        }
+
+        @Override
+        public void onProgress(int rowsParsed, int insertedCount, int mergedCount, int failedCount) {
+            synchronized (job) {
+                job.setRowsParsed(rowsParsed);
+                job.setInsertedCount(insertedCount);
+                job.setMergedCount(mergedCount);
+                job.setFailedCount(failedCount);
+            }
+
+            long now = System.currentTimeMillis();
+            if (now - lastPersisted >= progressIntervalMs) {
+                lastPersisted = now;
+                try {
+                    persist(job);
+                } catch (Exception e) {
+                    // Progress is best-effort; the final state is stored when the job ends
+                    log.warn("Failed to store progress of upload job {}: {}", job.getId(), e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.bankleads.bank_leads_backend.service;
 
+import com.bankleads.bank_leads_backend.config.AuthPrincipalCache;
 import com.bankleads.bank_leads_backend.dto.request.CreateUserRequest;
 import com.bankleads.bank_leads_backend.dto.response.UserResponse;
 import com.bankleads.bank_leads_backend.model.User;
@@ -14,6 +15,7 @@ import org.springframework.stereotype.Service;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final AuthPrincipalCache authPrincipalCache;
 
     public UserResponse createUser(CreateUserRequest request) {
         if (userRepository.existsByUsername(request.getUsername())) {
@@ -69,6 +71,7 @@ public class UserService {
             user.setRole(role);
         }
         User saved = userRepository.save(user);
+        authPrincipalCache.invalidate(id);
         return toResponse(saved);
     }
 
@@ -77,6 +80,7 @@ public class UserService {
             throw new IllegalArgumentException("User not found: " + id);
         }
         userRepository.deleteById(id);
+        authPrincipalCache.invalidate(id);
     }
 
     private UserResponse toResponse(User user) {
@@ -7,7 +7,12 @@ import org.apache.commons.csv.CSVRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 
@@ -15,25 +20,6 @@ public class CsvParserUtil {
 
     private static final Logger log = LoggerFactory.getLogger(CsvParserUtil.class);
     
-    public static class ParseResult {
-        private final boolean success;
-        private final int totalRows;
-        private final List<ParsedRow> validRows;
-        private final List<ParsedRow> invalidRows;
-        
-        public ParseResult(boolean success, int totalRows, List<ParsedRow> validRows, List<ParsedRow> invalidRows) {
-            this.success = success;
-            this.totalRows = totalRows;
-            this.validRows = validRows;
-            this.invalidRows = invalidRows;
-        }
-        
-        public boolean isSuccess() { return success; }
-        public int getTotalRows() { return totalRows; }
-        public List<ParsedRow> getValidRows() { return validRows; }
-        public List<ParsedRow> getInvalidRows() { return invalidRows; }
-    }
-    
     public static class ParsedRow {
         private final int row;
         private final Map<String, String> raw;
@@ -54,147 +40,228 @@ public class CsvParserUtil {
     }
 
     /**
-     * Backwards-compatible parse method (no validation)
+     * Summary of a streamed CSV parse. Valid rows are handed off in chunks and not retained;
+     * only the first {@link #MAX_REPORTED_INVALID_ROWS} invalid rows are kept for error reporting.
+     */
+    public static class StreamResult {
+        private final boolean success;
+        private final int totalRows;
+        private final int validCount;
+        private final int invalidCount;
+        private final List<ParsedRow> invalidRows;
+
+        public StreamResult(boolean success, int totalRows, int validCount, int invalidCount, List<ParsedRow> invalidRows) {
+            this.success = success;
+            this.totalRows = totalRows;
+            this.validCount = validCount;
+            this.invalidCount = invalidCount;
+            this.invalidRows = invalidRows;
+        }
+
+        public boolean isSuccess() { return success; }
+        public int getTotalRows() { return totalRows; }
+        public int getValidCount() { return validCount; }
+        public int getInvalidCount() { return invalidCount; }
+        public List<ParsedRow> getInvalidRows() { return invalidRows; }
+    }
+
+    public static final int MAX_REPORTED_INVALID_ROWS = 100;
+
+    private static final CSVFormat CSV_FORMAT = CSVFormat.DEFAULT.builder()
+            .setHeader()
+            .setSkipHeaderRecord(true)
+            .setTrim(true)
+            .build();
+
+    /**
+     * One data record as read from the file, before validation. {@code row} is the CSV line number (header is row 1).
+     */
+    public static class RawRecord {
+        private final int row;
+        private final String[] values;
+
+        public RawRecord(int row, String[] values) {
+            this.row = row;
+            this.values = values;
+        }
+
+        public int getRow() { return row; }
+        public String[] getValues() { return values; }
+    }
+
+    /**
+     * Receives the validated header and then chunks of raw records, in file order.
      */
-    public static ParseResult parseCSV(byte[] fileBuffer) {
-        return parseCSV(fileBuffer, null);
+    public interface RecordChunkHandler {
+        void onHeader(RecordParser parser);
+
+        void onChunk(List<RawRecord> records);
     }
 
     /**
-     * Parse CSV with optional canonical field validation
-     * @param fileBuffer CSV file content
+     * Outcome of reading a CSV file. On failure {@code errors} holds the header, empty-file or I/O error row, and
+     * {@code totalRows} the data rows read (and handed to the handler) before the error.
+     */
+    public static class ReadResult {
+        private final boolean success;
+        private final int totalRows;
+        private final List<ParsedRow> errors;
+
+        public ReadResult(boolean success, int totalRows, List<ParsedRow> errors) {
+            this.success = success;
+            this.totalRows = totalRows;
+            this.errors = errors;
+        }
+
+        public boolean isSuccess() { return success; }
+        public int getTotalRows() { return totalRows; }
+        public List<ParsedRow> getErrors() { return errors; }
+    }
+
+    /**
+     * Reads a CSV file without validating its rows: the header is checked and compiled once, then raw records
+     * are handed to {@code handler} in chunks of at most {@code chunkSize}. Rows are validated and normalized by
+     * {@link RecordParser#parse}, which the caller may run on other threads.
+     * @param input CSV content (closed by this method)
      * @param canonicalFields List of canonical fields for validation (can be null for no validation)
-     * @return ParseResult with validated rows
      */
-    public static ParseResult parseCSV(byte[] fileBuffer, List<CanonicalField> canonicalFields) {
-        try {
-            String content = new String(fileBuffer, StandardCharsets.UTF_8);
-            
-            CSVParser parser = CSVParser.parse(content, CSVFormat.DEFAULT.builder()
-                    .setHeader()
-                    .setSkipHeaderRecord(true)
-                    .setTrim(true)
-                    .build());
-            List<CSVRecord> records = parser.getRecords();
-            
-            if (records.isEmpty()) {
-                return new ParseResult(false, 0, Collections.emptyList(),
-                        Collections.singletonList(new ParsedRow(1, Collections.emptyMap(), Collections.emptyMap(),
-                                Collections.singletonList("CSV file is empty or has no data rows"))));
+    public static ReadResult readCSV(InputStream input,
+                                     List<CanonicalField> canonicalFields,
+                                     int chunkSize,
+                                     RecordChunkHandler handler) {
+        int effectiveChunkSize = Math.max(1, chunkSize);
+        int totalRows = 0;
+        boolean headerRead = false;
+        try (Reader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+             CSVParser parser = CSVParser.parse(reader, CSV_FORMAT)) {
+
+            if (parser.getHeaderNames().isEmpty()) {
+                return new ReadResult(false, 0, Collections.singletonList(emptyFileRow()));
             }
-            
-            List<String> headers = parser.getHeaderNames();
-            log.info("CSV headers parsed: {}", headers);
-            Map<String, String> headerMapping = LeadNormalizationUtil.normalizeHeaders(headers.toArray(new String[0]));
-            log.info("CSV header mapping (original->canonical): {}", headerMapping);
-
-            // If canonical fields provided, validate field count and headers first
-            if (canonicalFields != null && !canonicalFields.isEmpty()) {
-                CsvValidationUtil.ValidationResult countValidation = CsvValidationUtil.validateFieldCount(headers, canonicalFields);
-                if (!countValidation.isValid()) {
-                    return new ParseResult(false, 0, Collections.emptyList(),
-                            Collections.singletonList(new ParsedRow(1, Collections.emptyMap(), Collections.emptyMap(), countValidation.getErrors())));
-                }
 
-                CsvValidationUtil.ValidationResult headerValidation = CsvValidationUtil.validateHeaders(headers, canonicalFields);
-                if (!headerValidation.isValid()) {
-                    return new ParseResult(false, 0, Collections.emptyList(),
-                            Collections.singletonList(new ParsedRow(1, Collections.emptyMap(), Collections.emptyMap(), headerValidation.getErrors())));
-                }
+            RecordParser recordParser = prepare(parser.getHeaderNames(), canonicalFields);
+            if (recordParser.headerErrors != null) {
+                return new ReadResult(false, 0,
+                        Collections.singletonList(new ParsedRow(1, Collections.emptyMap(), Collections.emptyMap(), recordParser.headerErrors)));
             }
+            handler.onHeader(recordParser);
+            headerRead = true;
 
-            // Create field map for data type validation
-            Map<String, CanonicalField> fieldMap = new HashMap<>();
-            if (canonicalFields != null) {
-                for (CanonicalField field : canonicalFields) {
-                    if (field.getIsActive() != null && field.getIsActive()) {
-                        String normalizedName = field.getFieldName().toLowerCase().trim();
-                        fieldMap.put(normalizedName, field);
-                    }
+            List<RawRecord> chunk = new ArrayList<>(effectiveChunkSize);
+            int buffered = 0;
+            for (CSVRecord record : parser) {
+                buffered++;
+                chunk.add(new RawRecord(totalRows + buffered + 1, record.values())); // header is row 1
+                if (chunk.size() >= effectiveChunkSize) {
+                    handler.onChunk(chunk);
+                    totalRows += buffered;
+                    buffered = 0;
+                    chunk = new ArrayList<>(effectiveChunkSize);
                 }
             }
+            if (!chunk.isEmpty()) {
+                handler.onChunk(chunk);
+                totalRows += buffered;
+            }
 
-            List<ParsedRow> validRows = new ArrayList<>();
-            List<ParsedRow> invalidRows = new ArrayList<>();
+            if (totalRows == 0) {
+                return new ReadResult(false, 0, Collections.singletonList(emptyFileRow()));
+            }
+            return new ReadResult(true, totalRows, Collections.emptyList());
+        } catch (IOException | UncheckedIOException e) {
+            // Rows already handed to the handler stay counted; the error row is the first line not read
+            int errorRow = headerRead ? totalRows + 2 : 1;
+            return new ReadResult(false, totalRows, Collections.singletonList(ioErrorRow(errorRow, e)));
+        }
+    }
+
+    /**
+     * Header-derived state shared by every row of one file. Immutable once prepared, so rows may be
+     * parsed concurrently.
+     */
+    public static final class RecordParser {
+        private RowPlan plan;
+        private int columnCount;
+        private List<String> headerErrors;
 
-            for (int i = 0; i < records.size(); i++) {
-                CSVRecord record = records.get(i);
-                int rowNumber = i + 2; // +2 because index is 0-based and we skip header row
+        private RecordParser() {
+        }
 
-                try {
-                    Map<String, String> rowData = new HashMap<>();
-                    for (String header : headers) {
-                        rowData.put(header, record.get(header));
-                    }
+        public RowPlan getPlan() { return plan; }
 
-                    // If canonical fields present, validate row data types & required fields
-                    if (canonicalFields != null && !canonicalFields.isEmpty()) {
-                        CsvValidationUtil.ValidationResult rowValidation = CsvValidationUtil.validateRow(rowData, fieldMap, headerMapping);
-                        if (!rowValidation.isValid()) {
-                            Map<String, String> normalized = LeadNormalizationUtil.normalizeRowValues(rowData, headerMapping);
-                            invalidRows.add(new ParsedRow(rowNumber, rowData, normalized, rowValidation.getErrors()));
-                            log.warn("Row {} failed validation: {}", rowNumber, rowValidation.getErrors());
-                            continue;
-                        }
-                    }
+        /**
+         * Parses, validates and normalizes one record. The returned row is valid when its error list is empty.
+         */
+        public ParsedRow parse(int rowNumber, String[] values) {
+            try {
+                if (values.length < columnCount) {
+                    throw new IllegalArgumentException(String.format(
+                            "Row has %d values but the header has %d columns", values.length, columnCount));
+                }
+                Map<String, String> rowData = plan.rawRow(values);
 
-                    Map<String, String> normalized = LeadNormalizationUtil.normalizeRowValues(rowData, headerMapping);
+                // If canonical fields present, validate row data types & required fields
+                List<String> validationErrors = plan.validate(values);
+                if (!validationErrors.isEmpty()) {
+                    Map<String, String> normalized = plan.normalize(values);
+                    log.warn("Row {} failed validation: {}", rowNumber, validationErrors);
+                    return new ParsedRow(rowNumber, rowData, normalized, validationErrors);
+                }
 
+                Map<String, String> normalized = plan.normalize(values);
+
+                if (!LeadNormalizationUtil.validateIdentifiers(normalized)) {
                     // Provide more detailed identifier validation errors (email/phone/aadhar format issues)
-                    List<String> identifierIssues = new ArrayList<>();
-                    boolean hadEmailValue = hasMappedNonEmptyValue(rowData, headerMapping, "email");
-                    boolean hadPhoneValue = hasMappedNonEmptyValue(rowData, headerMapping, "phone_number");
-                    boolean hadAadharValue = hasMappedNonEmptyValue(rowData, headerMapping, "aadhar_number");
-
-                    if (hadEmailValue && !normalized.containsKey("email")) {
-                        identifierIssues.add("Invalid email format");
-                    }
-                    if (hadPhoneValue && !normalized.containsKey("phone_number")) {
-                        identifierIssues.add("Invalid phone number");
-                    }
-                    if (hadAadharValue && !normalized.containsKey("aadhar_number")) {
-                        identifierIssues.add("Invalid aadhar number");
-                    }
-
-                    if (!LeadNormalizationUtil.validateIdentifiers(normalized)) {
-                        List<String> errors = new ArrayList<>();
-                        if (!identifierIssues.isEmpty()) {
-                            errors.addAll(identifierIssues);
-                        }
-                        errors.add("At least one valid identifier (phone_number, email, or aadhar_number) is required");
-                        invalidRows.add(new ParsedRow(rowNumber, rowData, normalized, errors));
-                        log.warn("Row {} failed identifier validation: {}", rowNumber, errors);
-                        continue;
-                    }
-
-                    validRows.add(new ParsedRow(rowNumber, rowData, normalized, Collections.emptyList()));
-                } catch (Exception e) {
-                    String msg = e.getMessage() != null ? e.getMessage() : "Failed to parse row";
-                    invalidRows.add(new ParsedRow(rowNumber, Collections.emptyMap(), Collections.emptyMap(),
-                            Collections.singletonList(msg)));
-                    log.error("Row {} failed during CSV parsing: {}", rowNumber, msg, e);
+                    List<String> errors = new ArrayList<>(plan.identifierIssues(values, normalized));
+                    errors.add("At least one valid identifier (phone_number, email, or aadhar_number) is required");
+                    log.warn("Row {} failed identifier validation: {}", rowNumber, errors);
+                    return new ParsedRow(rowNumber, rowData, normalized, errors);
                 }
-            }
 
-            return new ParseResult(validRows.size() > 0, records.size(), validRows, invalidRows);
-        } catch (IOException e) {
-            return new ParseResult(false, 0, Collections.emptyList(),
-                    Collections.singletonList(new ParsedRow(1, Collections.emptyMap(), Collections.emptyMap(),
-                            Collections.singletonList(e.getMessage() != null ? e.getMessage() : "Failed to parse CSV file"))));
+                return new ParsedRow(rowNumber, rowData, normalized, Collections.emptyList());
+            } catch (Exception e) {
+                String msg = e.getMessage() != null ? e.getMessage() : "Failed to parse row";
+                log.error("Row {} failed during CSV parsing: {}", rowNumber, msg, e);
+                return new ParsedRow(rowNumber, Collections.emptyMap(), Collections.emptyMap(),
+                        Collections.singletonList(msg));
+            }
         }
     }
 
-    private static boolean hasMappedNonEmptyValue(
-            Map<String, String> rowData,
-            Map<String, String> headerMapping,
-            String canonicalKey
-    ) {
-        for (Map.Entry<String, String> entry : rowData.entrySet()) {
-            String mapped = headerMapping.get(entry.getKey());
-            if (!canonicalKey.equals(mapped)) continue;
-            String v = entry.getValue();
-            if (v != null && !v.trim().isEmpty()) return true;
+    private static RecordParser prepare(List<String> headers, List<CanonicalField> canonicalFields) {
+        RecordParser ctx = new RecordParser();
+        ctx.columnCount = headers.size();
+        log.info("CSV headers parsed: {}", headers);
+        boolean validate = canonicalFields != null && !canonicalFields.isEmpty();
+
+        // If canonical fields provided, validate field count and headers first
+        if (validate) {
+            CsvValidationUtil.ValidationResult countValidation = CsvValidationUtil.validateFieldCount(headers, canonicalFields);
+            if (!countValidation.isValid()) {
+                ctx.headerErrors = countValidation.getErrors();
+                return ctx;
+            }
+
+            CsvValidationUtil.ValidationResult headerValidation = CsvValidationUtil.validateHeaders(headers, canonicalFields);
+            if (!headerValidation.isValid()) {
+                ctx.headerErrors = headerValidation.getErrors();
+                return ctx;
+            }
         }
-        return false;
+
+        // Resolve mapping, field definitions and normalizers once for the whole file
+        ctx.plan = RowPlan.compile(headers, canonicalFields);
+        log.info("CSV header mapping (original->canonical): {}", ctx.plan.getHeaderMapping());
+        return ctx;
+    }
+
+    private static ParsedRow emptyFileRow() {
+        return new ParsedRow(1, Collections.emptyMap(), Collections.emptyMap(),
+                Collections.singletonList("CSV file is empty or has no data rows"));
+    }
+
+    private static ParsedRow ioErrorRow(int row, Exception e) {
+        return new ParsedRow(row, Collections.emptyMap(), Collections.emptyMap(),
+                Collections.singletonList(e.getMessage() != null ? e.getMessage() : "Failed to parse CSV file"));
     }
 }
@@ -11,7 +11,6 @@ import java.util.regex.Pattern;
 public class CsvValidationUtil {
     
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[^\\s@]+@[^\\s@]+\\.[^\\s@]+$");
-    private static final Pattern PHONE_PATTERN = Pattern.compile("^[0-9]{10,12}$");
     private static final List<DateTimeFormatter> DATE_FORMATTERS = Arrays.asList(
             DateTimeFormatter.ofPattern("yyyy-MM-dd"),
             DateTimeFormatter.ofPattern("dd-MM-yyyy"),
@@ -130,13 +129,21 @@ public class CsvValidationUtil {
      * Validates data type of a single field value against its canonical field type
      */
     public static ValidationResult validateDataType(String value, CanonicalField field) {
-        List<String> errors = new ArrayList<>();
-        
+        String error = dataTypeError(value, field);
+        return error == null
+                ? new ValidationResult(true, new ArrayList<>())
+                : new ValidationResult(false, new ArrayList<>(List.of(error)));
+    }
+    
+    /**
+     * Error message for a value that does not fit its canonical field (type or required check), or null if it fits.
+     */
+    public static String dataTypeError(String value, CanonicalField field) {
         if (value == null || value.trim().isEmpty()) {
             if (field.getIsRequired() != null && field.getIsRequired()) {
-                errors.add(String.format("Field '%s' is required but is empty", field.getFieldName()));
+                return String.format("Field '%s' is required but is empty", field.getFieldName());
             }
-            return new ValidationResult(errors.isEmpty(), errors);
+            return null;
         }
         
         String trimmedValue = value.trim();
@@ -145,53 +152,36 @@ public class CsvValidationUtil {
         switch (fieldType) {
             case String:
                 // String type accepts any non-empty value
-                break;
+                return null;
                 
             case Number:
-                if (!isValidNumber(trimmedValue)) {
-                    errors.add(String.format(
-                            "Field '%s' expects Number type but got '%s'", 
-                            field.getFieldName(), trimmedValue));
-                }
-                break;
+                return isValidNumber(trimmedValue) ? null : String.format(
+                        "Field '%s' expects Number type but got '%s'", 
+                        field.getFieldName(), trimmedValue);
                 
             case Date:
-                if (!isValidDate(trimmedValue)) {
-                    errors.add(String.format(
-                            "Field '%s' expects Date type but got '%s' (expected formats: yyyy-MM-dd, dd-MM-yyyy, MM/dd/yyyy, dd/MM/yyyy, yyyy/MM/dd)", 
-                            field.getFieldName(), trimmedValue));
-                }
-                break;
+                return isValidDate(trimmedValue) ? null : String.format(
+                        "Field '%s' expects Date type but got '%s' (expected formats: yyyy-MM-dd, dd-MM-yyyy, MM/dd/yyyy, dd/MM/yyyy, yyyy/MM/dd)", 
+                        field.getFieldName(), trimmedValue);
                 
             case Boolean:
-                if (!isValidBoolean(trimmedValue)) {
-                    errors.add(String.format(
-                            "Field '%s' expects Boolean type but got '%s' (expected: true, false, yes, no, 1, 0)", 
-                            field.getFieldName(), trimmedValue));
-                }
-                break;
+                return isValidBoolean(trimmedValue) ? null : String.format(
+                        "Field '%s' expects Boolean type but got '%s' (expected: true, false, yes, no, 1, 0)", 
+                        field.getFieldName(), trimmedValue);
                 
             case Email:
-                if (!isValidEmail(trimmedValue)) {
-                    errors.add(String.format(
-                            "Field '%s' expects Email type but got '%s'", 
-                            field.getFieldName(), trimmedValue));
-                }
-                break;
+                return isValidEmail(trimmedValue) ? null : String.format(
+                        "Field '%s' expects Email type but got '%s'", 
+                        field.getFieldName(), trimmedValue);
                 
             case Phone:
-                if (!isValidPhone(trimmedValue)) {
-                    errors.add(String.format(
-                            "Field '%s' expects Phone type but got '%s' (expected: 10-12 digits)", 
-                            field.getFieldName(), trimmedValue));
-                }
-                break;
+                return isValidPhone(trimmedValue) ? null : String.format(
+                        "Field '%s' expects Phone type but got '%s' (expected: 10-12 digits)", 
+                        field.getFieldName(), trimmedValue);
                 
             default:
-                errors.add(String.format("Unknown field type: %s", fieldType));
+                return String.format("Unknown field type: %s", fieldType);
         }
-        
-        return new ValidationResult(errors.isEmpty(), errors);
     }
     
     /**
@@ -281,8 +271,14 @@ public class CsvValidationUtil {
     }
     
     private static boolean isValidPhone(String value) {
-        // Remove non-digit characters for validation
-        String digits = value.replaceAll("\\D", "");
-        return PHONE_PATTERN.matcher(digits).matches();
+        // 10-12 ASCII digits once everything else is stripped
+        int digits = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            }
+        }
+        return digits >= 10 && digits <= 12;
     }
 }
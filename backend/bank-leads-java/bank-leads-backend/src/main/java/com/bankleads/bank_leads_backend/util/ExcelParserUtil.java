@@ -1,126 +1,84 @@
 package com.bankleads.bank_leads_backend.util;
 
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.util.*;
 
 public class ExcelParserUtil {
     
-    private static final Logger log = LoggerFactory.getLogger(ExcelParserUtil.class);
+    /**
+     * Row callbacks for {@link #readSheet}. Returning false from either method stops reading.
+     */
+    public interface SheetRowHandler {
+        boolean onHeader(List<String> headers);
+        
+        /**
+         * @param rowIndex 0-based sheet row index (header is row 0)
+         * @param values   cell values by column, aligned with the headers ("" for missing cells)
+         */
+        boolean onRow(int rowIndex, String[] values);
+    }
     
     /**
-     * Parse Excel file (reuses same ParseResult/ParsedRow from CsvParserUtil)
+     * Reads the first sheet of an upload row by row. .xlsx is streamed with {@link XlsxStreamingReader};
+     * legacy .xls (capped at 65,536 rows by the format) is still loaded with the usermodel API.
+     * @return number of rows present in the sheet (header included)
      */
-    public static CsvParserUtil.ParseResult parseExcel(byte[] fileBuffer) {
-        try (ByteArrayInputStream bis = new ByteArrayInputStream(fileBuffer);
-             Workbook workbook = new XSSFWorkbook(bis)) {
-            
+    public static int readSheet(File file, boolean xlsx, SheetRowHandler handler) throws IOException {
+        if (xlsx) {
+            return XlsxStreamingReader.read(file, handler);
+        }
+        
+        try (Workbook workbook = WorkbookFactory.create(file, null, true)) {
             Sheet sheet = workbook.getSheetAt(0);
-            
-            if (sheet.getPhysicalNumberOfRows() <= 1) {
-                return new CsvParserUtil.ParseResult(false, 0, Collections.emptyList(),
-                        Collections.singletonList(new CsvParserUtil.ParsedRow(1, 
-                            Collections.emptyMap(),
-                            Collections.emptyMap(),
-                            Collections.singletonList("Excel file is empty or has no data rows"))));
-            }
-            
-            // Get headers from first row
             Row headerRow = sheet.getRow(0);
             List<String> headers = new ArrayList<>();
-            for (Cell cell : headerRow) {
-                headers.add(getCellValue(cell));
+            if (headerRow != null) {
+                for (Cell cell : headerRow) {
+                    headers.add(cellValueAsString(cell));
+                }
+            }
+            if (!handler.onHeader(headers)) {
+                return sheet.getPhysicalNumberOfRows();
             }
             
-            log.info("Excel headers parsed: {}", headers);
-            Map<String, String> headerMapping = LeadNormalizationUtil.normalizeHeaders(
-                headers.toArray(new String[0])
-            );
-            log.info("Excel header mapping (original->canonical): {}", headerMapping);
-            
-            List<CsvParserUtil.ParsedRow> validRows = new ArrayList<>();
-            List<CsvParserUtil.ParsedRow> invalidRows = new ArrayList<>();
-            
-            // Process data rows (skip header row)
             for (int i = 1; i <= sheet.getLastRowNum(); i++) {
                 Row row = sheet.getRow(i);
                 if (row == null) continue;
                 
-                int rowNumber = i + 1; // Excel rows are 1-indexed
-                
-                try {
-                    Map<String, String> rowData = new HashMap<>();
-                    for (int j = 0; j < headers.size(); j++) {
-                        Cell cell = row.getCell(j);
-                        String header = headers.get(j);
-                        String value = cell != null ? getCellValue(cell) : "";
-                        rowData.put(header, value);
-                    }
-                    
-                    Map<String, String> normalized = LeadNormalizationUtil.normalizeRowValues(
-                        rowData, headerMapping
-                    );
-                    
-                    if (!LeadNormalizationUtil.validateIdentifiers(normalized)) {
-                        String errorMsg = "Row " + rowNumber + " failed: At least one identifier (phone_number, email, or aadhar_number) is required";
-                        log.warn(errorMsg);
-                        invalidRows.add(new CsvParserUtil.ParsedRow(rowNumber, rowData, normalized,
-                                Collections.singletonList(errorMsg)));
-                        continue;
-                    }
-                    
-                    validRows.add(new CsvParserUtil.ParsedRow(rowNumber, rowData, normalized, Collections.emptyList()));
-                } catch (Exception e) {
-                    String errorMsg = "Row " + rowNumber + " failed to parse: " + (e.getMessage() != null ? e.getMessage() : "Unknown parsing error");
-                    log.error(errorMsg, e);
-                    invalidRows.add(new CsvParserUtil.ParsedRow(rowNumber, Collections.emptyMap(), Collections.emptyMap(),
-                            Collections.singletonList(errorMsg)));
+                String[] values = new String[headers.size()];
+                for (int j = 0; j < values.length; j++) {
+                    values[j] = cellValueAsString(row.getCell(j));
+                }
+                if (!handler.onRow(i, values)) {
+                    break;
                 }
             }
-            
-            return new CsvParserUtil.ParseResult(validRows.size() > 0, 
-                sheet.getLastRowNum(), validRows, invalidRows);
-                
-        } catch (IOException e) {
-            log.error("Failed to parse Excel file: {}", e.getMessage(), e);
-            return new CsvParserUtil.ParseResult(false, 0, Collections.emptyList(),
-                    Collections.singletonList(new CsvParserUtil.ParsedRow(1, 
-                        Collections.emptyMap(),
-                        Collections.emptyMap(),
-                        Collections.singletonList(e.getMessage() != null ? e.getMessage() : "Failed to parse Excel file"))));
+            return sheet.getPhysicalNumberOfRows();
         }
     }
     
     /**
-     * Get cell value as string
+     * Cell value as used by the lead upload (no trimming; numbers truncated to whole values).
      */
-    private static String getCellValue(Cell cell) {
+    public static String cellValueAsString(Cell cell) {
         if (cell == null) return "";
         
         switch (cell.getCellType()) {
             case STRING:
-                return cell.getStringCellValue().trim();
+                return cell.getStringCellValue();
             case NUMERIC:
                 if (DateUtil.isCellDateFormatted(cell)) {
                     return cell.getDateCellValue().toString();
+                } else {
+                    return String.valueOf((long) cell.getNumericCellValue());
                 }
-                // Format numeric as string (remove decimal if integer)
-                double numValue = cell.getNumericCellValue();
-                if (numValue == (long) numValue) {
-                    return String.valueOf((long) numValue);
-                }
-                return String.valueOf(numValue);
             case BOOLEAN:
                 return String.valueOf(cell.getBooleanCellValue());
             case FORMULA:
                 return cell.getCellFormula();
-            case BLANK:
-                return "";
             default:
                 return "";
         }
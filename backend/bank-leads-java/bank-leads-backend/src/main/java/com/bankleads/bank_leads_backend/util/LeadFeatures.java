@@ -0,0 +1,59 @@
+package com.bankleads.bank_leads_backend.util;
+
+import com.bankleads.bank_leads_backend.model.Lead;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Lead feature vector for the LightGBM scoring model. Names, order and values must match
+ * {@code FEATURE_NAMES} and {@code extract_features_from_lead} in lead-scoring-ml/features.py.
+ */
+public final class LeadFeatures {
+
+    public static final List<String> FEATURE_NAMES = List.of(
+            "has_email",
+            "has_phone",
+            "has_aadhar",
+            "has_name",
+            "num_sources_seen",
+            "num_products_seen",
+            "days_since_created",
+            "p_id_personal_loan",
+            "p_id_credit_card",
+            "p_id_home_loan",
+            "p_id_other"
+    );
+
+    private LeadFeatures() {
+    }
+
+    /**
+     * Writes the features of {@code lead} into {@code out} (length {@link #FEATURE_NAMES}.size()).
+     */
+    public static void extract(Lead lead, LocalDateTime now, double[] out) {
+        out[0] = nonEmpty(lead.getEmail());
+        out[1] = nonEmpty(lead.getPhoneNumber());
+        out[2] = nonEmpty(lead.getAadharNumber());
+        out[3] = nonEmpty(lead.getName());
+        out[4] = lead.getSourcesSeen() != null ? lead.getSourcesSeen().size() : 0;
+        out[5] = lead.getProductsSeen() != null ? lead.getProductsSeen().size() : 0;
+        out[6] = lead.getCreatedAt() != null ? Math.max(0, Duration.between(lead.getCreatedAt(), now).toDays()) : 0;
+
+        // Product one-hot: same substring rules as features.py ("HOME_LOAN" sets both personal_loan and home_loan)
+        String pId = lead.getPId() != null ? lead.getPId().toUpperCase(Locale.ROOT) : "";
+        boolean personalLoan = pId.contains("PERSONAL") || pId.contains("LOAN");
+        boolean creditCard = pId.contains("CREDIT") || pId.contains("CARD");
+        boolean homeLoan = pId.contains("HOME");
+        out[7] = personalLoan ? 1 : 0;
+        out[8] = creditCard ? 1 : 0;
+        out[9] = homeLoan ? 1 : 0;
+        out[10] = personalLoan || creditCard || homeLoan ? 0 : 1;
+    }
+
+    private static double nonEmpty(String value) {
+        return value != null && !value.isBlank() ? 1 : 0;
+    }
+}
@@ -1,6 +1,7 @@
 package com.bankleads.bank_leads_backend.util;
 
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.regex.Pattern;
 
@@ -47,7 +48,7 @@ public class LeadNormalizationUtil {
     public static Map<String, String> normalizeHeaders(String[] headers) {
         Map<String, String> mapping = new HashMap<>();
         for (String header : headers) {
-            String normalized = header.trim().toLowerCase().replaceAll("\\s+", "_");
+            String normalized = normalizeHeaderKey(header);
             String mapped = HEADER_MAP.get(normalized);
             if (mapped != null) {
                 mapping.put(header, mapped);
@@ -56,59 +57,178 @@ public class LeadNormalizationUtil {
         return mapping;
     }
     
+    /**
+     * Same result as {@code header.trim().toLowerCase().replaceAll("\\s+", "_")}, in one pass over ASCII headers.
+     */
+    static String normalizeHeaderKey(String header) {
+        int start = trimStart(header);
+        int end = trimEnd(header, start);
+        if (!asciiLowercaseIsExact(header, start, end)) {
+            return header.trim().toLowerCase().replaceAll("\\s+", "_");
+        }
+        char[] buf = buffer(end - start);
+        int len = 0;
+        boolean inWhitespace = false;
+        for (int i = start; i < end; i++) {
+            char c = header.charAt(i);
+            if (isRegexWhitespace(c)) {
+                if (!inWhitespace) {
+                    buf[len++] = '_';
+                    inWhitespace = true;
+                }
+                continue;
+            }
+            inWhitespace = false;
+            buf[len++] = toLowerAscii(c);
+        }
+        return new String(buf, 0, len);
+    }
+    
     public static String normalizePhone(String value) {
-        if (value == null || value.trim().isEmpty()) {
+        if (value == null) {
             return null;
         }
         
-        String digits = value.replaceAll("\\D", "");
-        if (digits.isEmpty()) {
+        // Digits only; a blank value has none
+        char[] digits = buffer(value.length());
+        int count = collectDigits(value, digits);
+        if (count == 0) {
             return null;
         }
         
         // Handle Indian country code (+91)
-        if (digits.length() > 10) {
-            if (digits.startsWith("91") && digits.length() == 12) {
-                return digits.substring(2); // Remove 91 prefix
+        if (count > 10) {
+            if (count == 12 && digits[0] == '9' && digits[1] == '1') {
+                return new String(digits, 2, 10); // Remove 91 prefix
             }
-            return digits.substring(Math.max(0, digits.length() - 10)); // Take last 10 digits
+            return new String(digits, count - 10, 10); // Take last 10 digits
         }
         
-        if (digits.length() < 10) {
+        if (count < 10) {
             return null;
         }
         
-        return digits;
+        return new String(digits, 0, count);
     }
     
     public static String normalizeEmail(String value) {
-        if (value == null || value.trim().isEmpty()) {
+        if (value == null) {
             return null;
         }
-        
-        String email = value.trim().toLowerCase();
-        if (email.isEmpty()) {
+        int start = trimStart(value);
+        int end = trimEnd(value, start);
+        if (start == end) {
             return null;
         }
+        if (!asciiLowercaseIsExact(value, start, end)) {
+            // Non-ASCII (or a locale with special casing): lowercasing can change length, use the original path
+            String email = value.trim().toLowerCase();
+            return EMAIL_PATTERN.matcher(email).matches() ? email : null;
+        }
         
-        if (!EMAIL_PATTERN.matcher(email).matches()) {
+        // Equivalent of ^[^\s@]+@[^\s@]+\.[^\s@]+$: no whitespace, exactly one '@' with something before it,
+        // and a '.' in the domain that is neither its first nor its last character
+        char[] buf = buffer(end - start);
+        int len = 0;
+        int at = -1;
+        boolean domainDot = false;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (isRegexWhitespace(c)) {
+                return null;
+            }
+            if (c == '@') {
+                if (at >= 0 || len == 0) {
+                    return null;
+                }
+                at = len;
+            } else if (c == '.' && at >= 0 && len > at + 1 && i < end - 1) {
+                domainDot = true;
+            }
+            buf[len++] = toLowerAscii(c);
+        }
+        if (at < 0 || !domainDot) {
             return null;
         }
-        
-        return email;
+        return new String(buf, 0, len);
     }
     
     public static String normalizeAadhar(String value) {
-        if (value == null || value.trim().isEmpty()) {
+        if (value == null) {
             return null;
         }
         
-        String digits = value.replaceAll("\\D", "");
-        if (digits.isEmpty() || digits.length() != 12) {
+        char[] digits = buffer(value.length());
+        int count = collectDigits(value, digits);
+        if (count != 12) {
             return null;
         }
         
-        return digits;
+        return new String(digits, 0, count);
+    }
+    
+    // Per-thread scratch space for the normalizers; only the returned String is allocated per call
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[64]);
+    
+    private static char[] buffer(int capacity) {
+        char[] buf = BUFFER.get();
+        if (buf.length < capacity) {
+            buf = new char[Math.max(capacity, buf.length * 2)];
+            BUFFER.set(buf);
+        }
+        return buf;
+    }
+    
+    // ASCII 0-9 only, like \D in a non-Unicode regex
+    private static int collectDigits(String value, char[] out) {
+        int count = 0;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                out[count++] = c;
+            }
+        }
+        return count;
+    }
+    
+    // Bounds of String.trim(): characters <= ' ' are stripped from both ends
+    private static int trimStart(String value) {
+        int i = 0;
+        while (i < value.length() && value.charAt(i) <= ' ') {
+            i++;
+        }
+        return i;
+    }
+    
+    private static int trimEnd(String value, int start) {
+        int end = value.length();
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+    
+    // \s without UNICODE_CHARACTER_CLASS
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+    
+    private static char toLowerAscii(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+    
+    /**
+     * True when String.toLowerCase() on this range is plain A-Z folding: every char is ASCII and the default
+     * locale has no special casing for ASCII letters (Turkish/Azeri map 'I' to a dotless i).
+     */
+    private static boolean asciiLowercaseIsExact(String value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        String language = Locale.getDefault().getLanguage();
+        return !"tr".equals(language) && !"az".equals(language);
     }
     
     public static Map<String, String> normalizeRowValues(Map<String, String> row, Map<String, String> headerMapping) {
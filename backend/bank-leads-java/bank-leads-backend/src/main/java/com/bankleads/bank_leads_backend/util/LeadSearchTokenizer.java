@@ -0,0 +1,91 @@
+package com.bankleads.bank_leads_backend.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Search tokens stored on each lead (Lead.searchTokens, multikey indexed) and the matching query tokens.
+ * Name and email are lowercased and split into words, and every word is indexed by its edge n-grams, so a query
+ * word matches any word that starts with it. Phone numbers are indexed by their digit prefixes.
+ */
+public class LeadSearchTokenizer {
+
+    // Longer query words are truncated to this length before lookup
+    public static final int MAX_GRAM = 20;
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern PHONE_QUERY = Pattern.compile("^[+\\d\\s()\\-]*\\d[+\\d\\s()\\-]*$");
+
+    public static List<String> tokens(String name, String email, String phoneNumber) {
+        Set<String> tokens = new LinkedHashSet<>();
+        addWordGrams(name, tokens);
+        addWordGrams(email, tokens);
+        String digits = phoneDigits(phoneNumber);
+        if (digits != null) {
+            for (int i = 1; i <= digits.length(); i++) {
+                tokens.add(digits.substring(0, i));
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    /**
+     * Tokens that must all be present on a matching lead. A phone-like query becomes one digit prefix
+     * (normalized like {@link LeadNormalizationUtil#normalizePhone}); anything else is split into words.
+     */
+    public static List<String> queryTokens(String q) {
+        List<String> tokens = new ArrayList<>();
+        if (q == null || q.isBlank()) {
+            return tokens;
+        }
+        String trimmed = q.trim();
+        if (PHONE_QUERY.matcher(trimmed).matches()) {
+            String digits = phoneDigits(trimmed);
+            if (digits != null) {
+                tokens.add(digits);
+            }
+            return tokens;
+        }
+        for (String word : WORD_SEPARATOR.split(trimmed.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                tokens.add(word.length() > MAX_GRAM ? word.substring(0, MAX_GRAM) : word);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Digits of a phone value or query; numbers longer than 10 digits lose the country code as on upload.
+     */
+    public static String phoneDigits(String value) {
+        if (value == null) {
+            return null;
+        }
+        String digits = value.replaceAll("\\D", "");
+        if (digits.isEmpty()) {
+            return null;
+        }
+        if (digits.length() > 10) {
+            digits = digits.startsWith("91") && digits.length() == 12
+                    ? digits.substring(2)
+                    : digits.substring(digits.length() - 10);
+        }
+        return digits;
+    }
+
+    private static void addWordGrams(String value, Set<String> tokens) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        for (String word : WORD_SEPARATOR.split(value.toLowerCase(Locale.ROOT))) {
+            int max = Math.min(word.length(), MAX_GRAM);
+            for (int i = 1; i <= max; i++) {
+                tokens.add(word.substring(0, i));
+            }
+        }
+    }
+}
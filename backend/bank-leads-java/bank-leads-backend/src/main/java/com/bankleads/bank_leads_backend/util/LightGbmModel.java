@@ -0,0 +1,230 @@
+package com.bankleads.bank_leads_backend.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LightGBM model loaded from the text format written by {@code Booster.save_model} (lead-scoring-ml/train.py),
+ * evaluated in plain Java. All trees are flattened into shared primitive arrays: internal nodes hold the split
+ * feature, threshold, decision flags and children, where a negative child {@code ~i} is leaf {@code i}.
+ * {@link #predict} walks the trees over those arrays and allocates nothing. Instances are immutable.
+ * Only numerical splits and single-output objectives (binary, regression) are supported.
+ */
+public final class LightGbmModel {
+
+    private static final byte DEFAULT_LEFT = 2;
+    private static final int MISSING_ZERO = 1;
+    private static final int MISSING_NAN = 2;
+    // LightGBM's kZeroThreshold
+    private static final double ZERO_THRESHOLD = 1e-35;
+
+    private final int[] treeRoots;
+    private final int[] splitFeatures;
+    private final double[] thresholds;
+    private final byte[] decisionTypes;
+    private final int[] leftChildren;
+    private final int[] rightChildren;
+    private final double[] leafValues;
+    private final boolean sigmoidOutput;
+    private final double sigmoid;
+
+    private LightGbmModel(int[] treeRoots, int[] splitFeatures, double[] thresholds, byte[] decisionTypes,
+                          int[] leftChildren, int[] rightChildren, double[] leafValues,
+                          boolean sigmoidOutput, double sigmoid) {
+        this.treeRoots = treeRoots;
+        this.splitFeatures = splitFeatures;
+        this.thresholds = thresholds;
+        this.decisionTypes = decisionTypes;
+        this.leftChildren = leftChildren;
+        this.rightChildren = rightChildren;
+        this.leafValues = leafValues;
+        this.sigmoidOutput = sigmoidOutput;
+        this.sigmoid = sigmoid;
+    }
+
+    public int getTreeCount() {
+        return treeRoots.length;
+    }
+
+    /**
+     * Model output for one row: the probability for binary objectives, the raw score otherwise.
+     * @param features values in the order of the feature names the model was parsed against
+     */
+    public double predict(double[] features) {
+        double raw = 0;
+        for (int root : treeRoots) {
+            int node = root;
+            while (node >= 0) {
+                node = goesLeft(node, features[splitFeatures[node]]) ? leftChildren[node] : rightChildren[node];
+            }
+            raw += leafValues[~node];
+        }
+        return sigmoidOutput ? 1.0 / (1.0 + Math.exp(-sigmoid * raw)) : raw;
+    }
+
+    // Numerical decision as in LightGBM's Tree::NumericalDecision
+    private boolean goesLeft(int node, double value) {
+        int missingType = (decisionTypes[node] >> 2) & 3;
+        if (Double.isNaN(value) && missingType != MISSING_NAN) {
+            value = 0.0;
+        }
+        if ((missingType == MISSING_ZERO && Math.abs(value) <= ZERO_THRESHOLD)
+                || (missingType == MISSING_NAN && Double.isNaN(value))) {
+            return (decisionTypes[node] & DEFAULT_LEFT) != 0;
+        }
+        return value <= thresholds[node];
+    }
+
+    /**
+     * Parses a LightGBM text model. Split features are mapped by name onto {@code featureNames}, so
+     * {@link #predict} takes feature vectors in that order.
+     * @throws IllegalArgumentException when the model is malformed, uses unsupported features or names a
+     *                                  feature missing from {@code featureNames}
+     */
+    public static LightGbmModel parse(BufferedReader reader, List<String> featureNames) throws IOException {
+        Map<String, String> header = new HashMap<>();
+        List<Map<String, String>> trees = new ArrayList<>();
+        Map<String, String> current = header;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.startsWith("Tree=")) {
+                current = new HashMap<>();
+                trees.add(current);
+                continue;
+            }
+            if (line.equals("end of trees")) {
+                break;
+            }
+            int eq = line.indexOf('=');
+            if (eq > 0) {
+                current.put(line.substring(0, eq), line.substring(eq + 1));
+            }
+        }
+        if (trees.isEmpty()) {
+            throw new IllegalArgumentException("LightGBM model has no trees");
+        }
+        if (!"1".equals(header.getOrDefault("num_tree_per_iteration", "1"))) {
+            throw new IllegalArgumentException("Multiclass LightGBM models are not supported");
+        }
+
+        // Model feature index -> position in featureNames
+        String[] modelFeatures = required(header, "feature_names").split(" ");
+        int[] featureMap = new int[modelFeatures.length];
+        for (int i = 0; i < modelFeatures.length; i++) {
+            featureMap[i] = featureNames.indexOf(modelFeatures[i]);
+            if (featureMap[i] < 0) {
+                throw new IllegalArgumentException("Model feature '" + modelFeatures[i] + "' is not extracted for leads");
+            }
+        }
+
+        int nodeCount = 0;
+        int leafCount = 0;
+        for (Map<String, String> tree : trees) {
+            int leaves = Integer.parseInt(required(tree, "num_leaves"));
+            if (!"0".equals(tree.getOrDefault("num_cat", "0"))) {
+                throw new IllegalArgumentException("Categorical splits are not supported");
+            }
+            nodeCount += leaves - 1;
+            leafCount += leaves;
+        }
+
+        int[] treeRoots = new int[trees.size()];
+        int[] splitFeatures = new int[nodeCount];
+        double[] thresholds = new double[nodeCount];
+        byte[] decisionTypes = new byte[nodeCount];
+        int[] leftChildren = new int[nodeCount];
+        int[] rightChildren = new int[nodeCount];
+        double[] leafValues = new double[leafCount];
+
+        int nodeOffset = 0;
+        int leafOffset = 0;
+        for (int t = 0; t < trees.size(); t++) {
+            Map<String, String> tree = trees.get(t);
+            int leaves = Integer.parseInt(tree.get("num_leaves"));
+            double[] values = doubles(required(tree, "leaf_value"), leaves);
+            System.arraycopy(values, 0, leafValues, leafOffset, leaves);
+            if (leaves == 1) {
+                treeRoots[t] = ~leafOffset;
+                leafOffset++;
+                continue;
+            }
+
+            int internal = leaves - 1;
+            int[] features = ints(required(tree, "split_feature"), internal);
+            double[] treeThresholds = doubles(required(tree, "threshold"), internal);
+            int[] decisions = ints(required(tree, "decision_type"), internal);
+            int[] left = ints(required(tree, "left_child"), internal);
+            int[] right = ints(required(tree, "right_child"), internal);
+            for (int i = 0; i < internal; i++) {
+                int node = nodeOffset + i;
+                splitFeatures[node] = featureMap[features[i]];
+                thresholds[node] = treeThresholds[i];
+                decisionTypes[node] = (byte) decisions[i];
+                leftChildren[node] = child(left[i], nodeOffset, leafOffset);
+                rightChildren[node] = child(right[i], nodeOffset, leafOffset);
+            }
+            treeRoots[t] = nodeOffset;
+            nodeOffset += internal;
+            leafOffset += leaves;
+        }
+
+        // e.g. "binary sigmoid:1"
+        String objective = header.getOrDefault("objective", "");
+        boolean sigmoidOutput = objective.startsWith("binary");
+        double sigmoid = 1.0;
+        for (String part : objective.split(" ")) {
+            if (part.startsWith("sigmoid:")) {
+                sigmoid = Double.parseDouble(part.substring("sigmoid:".length()));
+            }
+        }
+
+        return new LightGbmModel(treeRoots, splitFeatures, thresholds, decisionTypes,
+                leftChildren, rightChildren, leafValues, sigmoidOutput, sigmoid);
+    }
+
+    // Tree-local child index to a global node index, or ~global leaf index
+    private static int child(int local, int nodeOffset, int leafOffset) {
+        return local >= 0 ? nodeOffset + local : ~(leafOffset + ~local);
+    }
+
+    private static String required(Map<String, String> section, String key) {
+        String value = section.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("LightGBM model is missing '" + key + "'");
+        }
+        return value;
+    }
+
+    private static int[] ints(String value, int expected) {
+        int[] result = Arrays.stream(value.trim().split(" ")).mapToInt(Integer::parseInt).toArray();
+        checkLength(result.length, expected);
+        return result;
+    }
+
+    private static double[] doubles(String value, int expected) {
+        double[] result = Arrays.stream(value.trim().split(" ")).mapToDouble(LightGbmModel::parseDouble).toArray();
+        checkLength(result.length, expected);
+        return result;
+    }
+
+    private static double parseDouble(String value) {
+        return switch (value) {
+            case "inf" -> Double.POSITIVE_INFINITY;
+            case "-inf" -> Double.NEGATIVE_INFINITY;
+            case "nan" -> Double.NaN;
+            default -> Double.parseDouble(value);
+        };
+    }
+
+    private static void checkLength(int actual, int expected) {
+        if (actual != expected) {
+            throw new IllegalArgumentException("LightGBM tree has " + actual + " values where " + expected + " were expected");
+        }
+    }
+}
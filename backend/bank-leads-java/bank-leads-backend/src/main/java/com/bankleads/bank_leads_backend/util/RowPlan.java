@@ -0,0 +1,233 @@
+package com.bankleads.bank_leads_backend.util;
+
+import com.bankleads.bank_leads_backend.model.CanonicalField;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-file row processing plan. Header mapping, canonical field definitions, required-field checks and the
+ * normalizer for each column are resolved once from the header row; each data row is then validated and
+ * normalized by a loop over column positions, with no per-row header lookups or lowercasing.
+ * Produces the same errors and normalized values as CsvValidationUtil.validateRow and
+ * LeadNormalizationUtil.normalizeRowValues: columns are visited in the order those methods iterated the
+ * header-keyed row map, so errors come out in the same order and, when two columns map to the same canonical
+ * field, the same one wins.
+ */
+public final class RowPlan {
+
+    enum Target {
+        NAME("name"),
+        PHONE("phone_number"),
+        EMAIL("email"),
+        AADHAR("aadhar_number");
+
+        final String key;
+
+        Target(String key) {
+            this.key = key;
+        }
+
+        static Target of(String canonicalKey) {
+            if (canonicalKey == null) return null;
+            for (Target target : values()) {
+                if (target.key.equals(canonicalKey)) return target;
+            }
+            return null;
+        }
+    }
+
+    private final String[] headers;
+    private final Map<String, String> headerMapping;
+    // Column positions that are read, in row-map iteration order (a repeated header keeps only its last column)
+    private final int[] columns;
+    // Active canonical field validated at each position of columns, or null
+    private final CanonicalField[] fields;
+    // Normalizer applied at each position of columns, or null
+    private final Target[] targets;
+    // Required fields no header maps to; identical for every row of the file
+    private final List<String> missingRequiredErrors;
+    private final boolean validate;
+
+    private RowPlan(String[] headers, Map<String, String> headerMapping, int[] columns, CanonicalField[] fields,
+                    Target[] targets, List<String> missingRequiredErrors, boolean validate) {
+        this.headers = headers;
+        this.headerMapping = headerMapping;
+        this.columns = columns;
+        this.fields = fields;
+        this.targets = targets;
+        this.missingRequiredErrors = missingRequiredErrors;
+        this.validate = validate;
+    }
+
+    /**
+     * @param canonicalFields canonical fields to validate against; null or empty skips datatype validation
+     */
+    public static RowPlan compile(List<String> headers, List<CanonicalField> canonicalFields) {
+        String[] headerArray = headers.toArray(new String[0]);
+        Map<String, String> headerMapping = LeadNormalizationUtil.normalizeHeaders(headerArray);
+        boolean validate = canonicalFields != null && !canonicalFields.isEmpty();
+
+        Map<String, CanonicalField> fieldMap = new HashMap<>();
+        if (canonicalFields != null) {
+            for (CanonicalField field : canonicalFields) {
+                if (field.getIsActive() != null && field.getIsActive()) {
+                    fieldMap.put(field.getFieldName().toLowerCase().trim(), field);
+                }
+            }
+        }
+
+        // Filled exactly like the per-row map the old path built, so it iterates the headers in the same order
+        Map<String, Integer> rowOrder = new HashMap<>();
+        for (int j = 0; j < headerArray.length; j++) {
+            rowOrder.put(headerArray[j], j);
+        }
+
+        List<Integer> columns = new ArrayList<>();
+        List<CanonicalField> fields = new ArrayList<>();
+        List<Target> targets = new ArrayList<>();
+        Set<String> mappedKeys = new HashSet<>();
+        for (Map.Entry<String, Integer> column : rowOrder.entrySet()) {
+            String header = column.getKey();
+            int j = column.getValue();
+            String mappedKey = headerMapping.getOrDefault(header, header.toLowerCase().trim().replaceAll("\\s+", "_"));
+            mappedKeys.add(mappedKey);
+            CanonicalField field = validate ? fieldMap.get(mappedKey) : null;
+            Target target = Target.of(headerMapping.get(header));
+            if (field == null && target == null) {
+                continue;
+            }
+            columns.add(j);
+            fields.add(field);
+            targets.add(target);
+        }
+
+        List<String> missingRequiredErrors = new ArrayList<>();
+        if (validate) {
+            for (Map.Entry<String, CanonicalField> entry : fieldMap.entrySet()) {
+                CanonicalField field = entry.getValue();
+                if (field.getIsRequired() != null && field.getIsRequired() && !mappedKeys.contains(entry.getKey())) {
+                    missingRequiredErrors.add(String.format("Required field '%s' is missing", field.getFieldName()));
+                }
+            }
+        }
+
+        return new RowPlan(
+                headerArray,
+                headerMapping,
+                columns.stream().mapToInt(Integer::intValue).toArray(),
+                fields.toArray(new CanonicalField[0]),
+                targets.toArray(new Target[0]),
+                Collections.unmodifiableList(missingRequiredErrors),
+                validate);
+    }
+
+    public List<String> getHeaders() {
+        return List.of(headers);
+    }
+
+    public Map<String, String> getHeaderMapping() {
+        return headerMapping;
+    }
+
+    /**
+     * Row values keyed by header, as kept for raw input and error reports.
+     */
+    public Map<String, String> rawRow(String[] values) {
+        Map<String, String> row = new HashMap<>(headers.length * 2);
+        for (int j = 0; j < headers.length; j++) {
+            row.put(headers[j], value(values, j));
+        }
+        return row;
+    }
+
+    /**
+     * Datatype and required-field errors for one row; empty when the row is valid or validation is off.
+     */
+    public List<String> validate(String[] values) {
+        if (!validate) {
+            return Collections.emptyList();
+        }
+        List<String> errors = null;
+        for (int i = 0; i < columns.length; i++) {
+            CanonicalField field = fields[i];
+            if (field == null) continue;
+            String error = CsvValidationUtil.dataTypeError(value(values, columns[i]), field);
+            if (error != null) {
+                if (errors == null) errors = new ArrayList<>();
+                errors.add(error);
+            }
+        }
+        if (missingRequiredErrors.isEmpty()) {
+            return errors != null ? errors : Collections.emptyList();
+        }
+        if (errors == null) errors = new ArrayList<>();
+        errors.addAll(missingRequiredErrors);
+        return errors;
+    }
+
+    /**
+     * Normalized name/phone/email/aadhar values of one row (invalid or empty values are left out).
+     */
+    public Map<String, String> normalize(String[] values) {
+        Map<String, String> result = new HashMap<>(8);
+        for (int i = 0; i < columns.length; i++) {
+            Target target = targets[i];
+            if (target == null) continue;
+            String raw = value(values, columns[i]);
+            if (raw == null || raw.trim().isEmpty()) continue;
+            String normalized = switch (target) {
+                case NAME -> raw.trim();
+                case PHONE -> LeadNormalizationUtil.normalizePhone(raw);
+                case EMAIL -> LeadNormalizationUtil.normalizeEmail(raw);
+                case AADHAR -> LeadNormalizationUtil.normalizeAadhar(raw);
+            };
+            if (normalized != null && !normalized.isEmpty()) {
+                result.put(target.key, normalized);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Format problems for identifier columns that had a value which did not normalize.
+     */
+    public List<String> identifierIssues(String[] values, Map<String, String> normalized) {
+        boolean hadEmail = false;
+        boolean hadPhone = false;
+        boolean hadAadhar = false;
+        for (int i = 0; i < columns.length; i++) {
+            Target target = targets[i];
+            if (target == null || target == Target.NAME) continue;
+            String raw = value(values, columns[i]);
+            if (raw == null || raw.trim().isEmpty()) continue;
+            switch (target) {
+                case EMAIL -> hadEmail = true;
+                case PHONE -> hadPhone = true;
+                case AADHAR -> hadAadhar = true;
+                default -> {
+                }
+            }
+        }
+        List<String> issues = new ArrayList<>();
+        if (hadEmail && !normalized.containsKey("email")) {
+            issues.add("Invalid email format");
+        }
+        if (hadPhone && !normalized.containsKey("phone_number")) {
+            issues.add("Invalid phone number");
+        }
+        if (hadAadhar && !normalized.containsKey("aadhar_number")) {
+            issues.add("Invalid aadhar number");
+        }
+        return issues;
+    }
+
+    private static String value(String[] values, int column) {
+        return column < values.length ? values[column] : null;
+    }
+}
@@ -0,0 +1,265 @@
+package com.bankleads.bank_leads_backend.util;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Reads the first sheet of an .xlsx file with POI's XSSF event API (shared strings table + SAX sheet handler)
+ * instead of building an XSSFWorkbook, so only the current row is held in memory.
+ * Cell values are rendered the same way as {@link ExcelParserUtil#cellValueAsString}.
+ */
+public class XlsxStreamingReader {
+
+    /**
+     * Streams the first sheet of {@code file} into {@code handler}.
+     * Row 0 is passed to {@link ExcelParserUtil.SheetRowHandler#onHeader}; every later row that exists in the
+     * sheet is passed to {@link ExcelParserUtil.SheetRowHandler#onRow} as values aligned with the headers.
+     * @return number of rows present in the sheet (header included)
+     */
+    public static int read(File file, ExcelParserUtil.SheetRowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            boolean date1904 = isDate1904(reader);
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return 0;
+            }
+
+            SheetHandler sheetHandler = new SheetHandler(sharedStrings, styles, date1904, handler);
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(sheetHandler);
+                parser.parse(new InputSource(sheet));
+            } catch (StopReadingException e) {
+                // Handler asked to stop early (e.g. header validation failed)
+            }
+            return sheetHandler.physicalRows;
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Failed to read Excel file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads {@code workbookPr/@date1904} from the workbook part: serial dates then count from 1904-01-01.
+     */
+    private static boolean isDate1904(XSSFReader reader)
+            throws IOException, OpenXML4JException, SAXException, ParserConfigurationException {
+        boolean[] date1904 = new boolean[1];
+        try (InputStream workbook = reader.getWorkbookData()) {
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attributes)
+                        throws SAXException {
+                    if ("workbookPr".equals(localName)) {
+                        String value = attributes.getValue("date1904");
+                        date1904[0] = "1".equals(value) || "true".equalsIgnoreCase(value);
+                        throw new StopReadingException();
+                    }
+                    if ("sheets".equals(localName)) {
+                        // workbookPr precedes the sheet list; absent means the 1900 date system
+                        throw new StopReadingException();
+                    }
+                }
+            });
+            parser.parse(new InputSource(workbook));
+        } catch (StopReadingException e) {
+            // Found what we need
+        }
+        return date1904[0];
+    }
+
+    private static class StopReadingException extends SAXException {
+        StopReadingException() {
+            super("Stopped by row handler");
+        }
+    }
+
+    private static class SheetHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable sharedStrings;
+        private final StylesTable styles;
+        private final boolean date1904;
+        private final ExcelParserUtil.SheetRowHandler handler;
+
+        private final TreeMap<Integer, String> cells = new TreeMap<>();
+        private final StringBuilder value = new StringBuilder();
+        private final StringBuilder formula = new StringBuilder();
+
+        private List<String> headers;
+        private int physicalRows;
+        private int rowIndex = -1;
+        private int nextColumn;
+
+        private int column;
+        private String cellType;
+        private int styleIndex;
+        private boolean hasFormula;
+        private boolean inValue;
+        private boolean inFormula;
+        private boolean inInlineText;
+
+        SheetHandler(ReadOnlySharedStringsTable sharedStrings, StylesTable styles, boolean date1904,
+                     ExcelParserUtil.SheetRowHandler handler) {
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.date1904 = date1904;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row" -> {
+                    String r = attributes.getValue("r");
+                    rowIndex = r != null ? Integer.parseInt(r) - 1 : rowIndex + 1;
+                    cells.clear();
+                    nextColumn = 0;
+                }
+                case "c" -> {
+                    String ref = attributes.getValue("r");
+                    column = ref != null ? columnIndex(ref) : nextColumn;
+                    nextColumn = column + 1;
+                    cellType = attributes.getValue("t");
+                    String s = attributes.getValue("s");
+                    styleIndex = s != null ? Integer.parseInt(s) : 0;
+                    value.setLength(0);
+                    formula.setLength(0);
+                    hasFormula = false;
+                }
+                case "v" -> inValue = true;
+                case "f" -> {
+                    inFormula = true;
+                    hasFormula = true;
+                }
+                case "t" -> inInlineText = "inlineStr".equals(cellType);
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue || inInlineText) {
+                value.append(ch, start, length);
+            } else if (inFormula) {
+                formula.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v" -> inValue = false;
+                case "f" -> inFormula = false;
+                case "t" -> inInlineText = false;
+                case "c" -> cells.put(column, cellValue());
+                case "row" -> emitRow();
+                default -> {
+                }
+            }
+        }
+
+        private void emitRow() throws SAXException {
+            physicalRows++;
+            if (headers == null) {
+                if (rowIndex == 0) {
+                    // Same as iterating the physical cells of sheet.getRow(0)
+                    headers = new ArrayList<>(cells.values());
+                    if (!handler.onHeader(headers)) {
+                        throw new StopReadingException();
+                    }
+                    return;
+                }
+                headers = new ArrayList<>();
+                if (!handler.onHeader(headers)) {
+                    throw new StopReadingException();
+                }
+            }
+
+            String[] values = new String[headers.size()];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = cells.getOrDefault(j, "");
+            }
+            if (!handler.onRow(rowIndex, values)) {
+                throw new StopReadingException();
+            }
+        }
+
+        private String cellValue() {
+            // Formula cells render as the formula text; shared-formula children carry no text, use the cached value
+            if (hasFormula && formula.length() > 0) {
+                return formula.toString();
+            }
+            String raw = value.toString();
+            if (cellType == null || "n".equals(cellType)) {
+                if (raw.isEmpty()) {
+                    return "";
+                }
+                double numeric = Double.parseDouble(raw);
+                if (isDateFormatted(numeric)) {
+                    return DateUtil.getJavaDate(numeric, date1904).toString();
+                }
+                return String.valueOf((long) numeric);
+            }
+            return switch (cellType) {
+                case "s" -> raw.isEmpty() ? "" : sharedStrings.getItemAt(Integer.parseInt(raw)).getString();
+                case "b" -> String.valueOf("1".equals(raw));
+                case "e" -> "";
+                default -> raw; // inlineStr, str
+            };
+        }
+
+        private boolean isDateFormatted(double numeric) {
+            if (styles == null || !DateUtil.isValidExcelDate(numeric)) {
+                return false;
+            }
+            XSSFCellStyle style = styles.getStyleAt(styleIndex);
+            if (style == null) {
+                return false;
+            }
+            short formatIndex = style.getDataFormat();
+            String formatString = style.getDataFormatString();
+            if (formatString == null) {
+                formatString = BuiltinFormats.getBuiltinFormat(formatIndex);
+            }
+            return DateUtil.isADateFormat(formatIndex, formatString);
+        }
+
+        private static int columnIndex(String cellRef) {
+            int col = 0;
+            for (int i = 0; i < cellRef.length(); i++) {
+                char c = cellRef.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                col = col * 26 + (c - 'A' + 1);
+            }
+            return col - 1;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.bankleads.bank_leads_backend.service;
+
+import com.bankleads.bank_leads_backend.model.Lead;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DuplicateGroupFinderTest {
+
+    private static final DeduplicationService.DeduplicationConfig ALL_FIELDS =
+            new DeduplicationService.DeduplicationConfig(true, true, true);
+
+    @Test
+    void chainsEmailPhoneAndAadharMatchesIntoOneGroup() {
+        Lead a = lead("a", "Ann@Example.com ", null, null, LocalDateTime.of(2024, 1, 3, 0, 0));
+        Lead b = lead("b", "ann@example.com", "9876543210", null, LocalDateTime.of(2024, 1, 2, 0, 0));
+        Lead c = lead("c", null, " 9876543210", "123412341234", LocalDateTime.of(2024, 1, 4, 0, 0));
+        Lead d = lead("d", "other@example.com", null, "123412341234", null);
+        Lead unrelated = lead("e", "solo@example.com", "9000000000", "999999999999", LocalDateTime.of(2024, 1, 1, 0, 0));
+
+        List<List<Lead>> groups = DuplicateGroupFinder.findGroups(List.of(a, unrelated, b, c, d), ALL_FIELDS);
+
+        assertThat(groups).hasSize(1);
+        // Oldest first, leads without createdAt last
+        assertThat(groups.get(0)).extracting(Lead::getId).containsExactly("b", "a", "c", "d");
+    }
+
+    @Test
+    void disabledIdentifiersDoNotJoinLeads() {
+        Lead a = lead("a", "ann@example.com", "9876543210", null, null);
+        Lead b = lead("b", "bob@example.com", "9876543210", null, null);
+
+        DeduplicationService.DeduplicationConfig emailOnly = new DeduplicationService.DeduplicationConfig(true, false, false);
+        assertThat(DuplicateGroupFinder.findGroups(List.of(a, b), emailOnly)).isEmpty();
+        assertThat(DuplicateGroupFinder.findGroups(List.of(a, b), ALL_FIELDS)).hasSize(1);
+    }
+
+    @Test
+    void blankIdentifiersNeverMatch() {
+        Lead a = lead("a", "  ", "", null, null);
+        Lead b = lead("b", " ", "", null, null);
+
+        assertThat(DuplicateGroupFinder.findGroups(List.of(a, b), ALL_FIELDS)).isEmpty();
+    }
+
+    @Test
+    void emailKeyIgnoresDefaultLocale() {
+        Locale previous = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.forLanguageTag("tr"));
+            assertThat(DuplicateGroupFinder.emailKey(" INFO@Example.com")).isEqualTo("info@example.com");
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    private static Lead lead(String id, String email, String phone, String aadhar, LocalDateTime createdAt) {
+        return Lead.builder()
+                .id(id)
+                .email(email)
+                .phoneNumber(phone)
+                .aadharNumber(aadhar)
+                .createdAt(createdAt)
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.bankleads.bank_leads_backend.util;
+
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.Assume;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The single-pass normalizers must return exactly what the original regex-based implementations returned.
+ */
+class LeadNormalizationUtilPropertiesTest {
+
+    // Digits, separators, email punctuation, every \s char, other control chars and a few non-ASCII letters
+    private static final String INTERESTING_CHARS =
+            "0123456789 +-()@._aAzZIi\t\n\u000B\f\r\u0001\u001F\u0085  İıßÉé";
+
+    @Property(tries = 5000)
+    void normalizePhoneMatchesRegexImplementation(@ForAll("inputs") String value) {
+        assertThat(LeadNormalizationUtil.normalizePhone(value)).isEqualTo(Reference.normalizePhone(value));
+    }
+
+    @Property(tries = 5000)
+    void normalizeAadharMatchesRegexImplementation(@ForAll("inputs") String value) {
+        assertThat(LeadNormalizationUtil.normalizeAadhar(value)).isEqualTo(Reference.normalizeAadhar(value));
+    }
+
+    @Property(tries = 5000)
+    void normalizeEmailMatchesRegexImplementation(@ForAll("emails") String value) {
+        assertThat(LeadNormalizationUtil.normalizeEmail(value)).isEqualTo(Reference.normalizeEmail(value));
+    }
+
+    @Property(tries = 5000)
+    void normalizeHeaderKeyMatchesRegexImplementation(@ForAll("inputs") String value) {
+        Assume.that(value != null); // headers are never null
+        assertThat(LeadNormalizationUtil.normalizeHeaderKey(value)).isEqualTo(Reference.normalizeHeaderKey(value));
+    }
+
+    @Provide
+    Arbitrary<String> inputs() {
+        return Arbitraries.oneOf(
+                Arbitraries.strings().withChars(INTERESTING_CHARS).ofMaxLength(24),
+                // Phone-shaped values around the 10/12 digit boundaries, with and without the 91 prefix
+                Arbitraries.strings().numeric().ofMinLength(8).ofMaxLength(14),
+                Arbitraries.strings().numeric().ofLength(10).map(d -> "+91 " + d),
+                Arbitraries.strings().all().ofMaxLength(24),
+                Arbitraries.just(null));
+    }
+
+    @Provide
+    Arbitrary<String> emails() {
+        Arbitrary<String> part = Arbitraries.strings().withChars("abcXYZ09._-+@ \tİé").ofMaxLength(8);
+        return Arbitraries.oneOf(
+                inputs(),
+                part.list().ofMinSize(1).ofMaxSize(4).map(parts -> String.join("", parts)),
+                Arbitraries.strings().withChars("abcXYZ09._-+").ofMinLength(1).ofMaxLength(8).tuple3()
+                        .map(t -> " " + t.get1() + "@" + t.get2() + "." + t.get3() + "\n"));
+    }
+
+    /**
+     * The implementations LeadNormalizationUtil used before the single-pass rewrite.
+     */
+    private static final class Reference {
+        private static final Pattern EMAIL_PATTERN = Pattern.compile("^[^\\s@]+@[^\\s@]+\\.[^\\s@]+$");
+
+        static String normalizeHeaderKey(String header) {
+            return header.trim().toLowerCase().replaceAll("\\s+", "_");
+        }
+
+        static String normalizePhone(String value) {
+            if (value == null || value.trim().isEmpty()) {
+                return null;
+            }
+            String digits = value.replaceAll("\\D", "");
+            if (digits.isEmpty()) {
+                return null;
+            }
+            if (digits.length() > 10) {
+                if (digits.startsWith("91") && digits.length() == 12) {
+                    return digits.substring(2);
+                }
+                return digits.substring(Math.max(0, digits.length() - 10));
+            }
+            if (digits.length() < 10) {
+                return null;
+            }
+            return digits;
+        }
+
+        static String normalizeEmail(String value) {
+            if (value == null || value.trim().isEmpty()) {
+                return null;
+            }
+            String email = value.trim().toLowerCase();
+            if (email.isEmpty()) {
+                return null;
+            }
+            if (!EMAIL_PATTERN.matcher(email).matches()) {
+                return null;
+            }
+            return email;
+        }
+
+        static String normalizeAadhar(String value) {
+            if (value == null || value.trim().isEmpty()) {
+                return null;
+            }
+            String digits = value.replaceAll("\\D", "");
+            if (digits.isEmpty() || digits.length() != 12) {
+                return null;
+            }
+            return digits;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.bankleads.bank_leads_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Predictions must match LightGBM's own for models in the format lead-scoring-ml/train.py saves.
+ * The resources under lightgbm/ were produced by the LightGBM C library (the one behind the Python Booster) with
+ * train.py's parameters on synthetic leads: each *_predictions.csv holds feature rows and Booster.predict's
+ * probability for them. lead_score_model.txt has NaN-missing splits (days_since_created was partly missing in
+ * training); lead_score_model_zero_as_missing.txt was trained with zero_as_missing=true.
+ * Rows include all zeros, all NaN, NaN and zero values in single features.
+ */
+class LightGbmModelTest {
+
+    private static final double TOLERANCE = 1e-12;
+
+    @Test
+    void matchesLightGbmWithNanMissingSplits() throws IOException {
+        LightGbmModel model = load("lead_score_model.txt", LeadFeatures.FEATURE_NAMES);
+
+        assertThat(model.getTreeCount()).isEqualTo(20);
+        assertPredictions(model, "lead_score_model_predictions.csv");
+    }
+
+    @Test
+    void matchesLightGbmWithZeroAsMissingSplits() throws IOException {
+        LightGbmModel model = load("lead_score_model_zero_as_missing.txt", LeadFeatures.FEATURE_NAMES);
+
+        assertThat(model.getTreeCount()).isEqualTo(10);
+        assertPredictions(model, "lead_score_model_zero_as_missing_predictions.csv");
+    }
+
+    @Test
+    void mapsModelFeaturesOntoGivenOrder() throws IOException {
+        List<String> reversed = new ArrayList<>(LeadFeatures.FEATURE_NAMES);
+        Collections.reverse(reversed);
+        LightGbmModel model = load("lead_score_model.txt", reversed);
+
+        for (Row row : rows("lead_score_model_predictions.csv")) {
+            double[] features = new double[row.features.length];
+            for (int i = 0; i < features.length; i++) {
+                features[i] = row.features[features.length - 1 - i];
+            }
+            assertThat(model.predict(features)).isCloseTo(row.expected, within(TOLERANCE));
+        }
+    }
+
+    @Test
+    void rejectsModelFeatureThatIsNotExtracted() {
+        List<String> features = LeadFeatures.FEATURE_NAMES.subList(0, LeadFeatures.FEATURE_NAMES.size() - 1);
+
+        assertThatThrownBy(() -> load("lead_score_model.txt", features))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("p_id_other");
+    }
+
+    private static void assertPredictions(LightGbmModel model, String predictions) throws IOException {
+        List<Row> rows = rows(predictions);
+        assertThat(rows).isNotEmpty();
+        for (Row row : rows) {
+            assertThat(model.predict(row.features))
+                    .as("prediction for %s", Arrays.toString(row.features))
+                    .isCloseTo(row.expected, within(TOLERANCE));
+        }
+    }
+
+    private static LightGbmModel load(String name, List<String> featureNames) throws IOException {
+        try (BufferedReader reader = reader(name)) {
+            return LightGbmModel.parse(reader, featureNames);
+        }
+    }
+
+    // Header row of feature names plus "expected"; "nan" marks a missing value
+    private static List<Row> rows(String name) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        try (BufferedReader reader = reader(name)) {
+            String header = reader.readLine();
+            assertThat(header).startsWith(String.join(",", LeadFeatures.FEATURE_NAMES));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(",");
+                double[] features = new double[values.length - 1];
+                for (int i = 0; i < features.length; i++) {
+                    features[i] = "nan".equals(values[i]) ? Double.NaN : Double.parseDouble(values[i]);
+                }
+                rows.add(new Row(features, Double.parseDouble(values[values.length - 1])));
+            }
+        }
+        return rows;
+    }
+
+    private static BufferedReader reader(String name) {
+        InputStream input = LightGbmModelTest.class.getResourceAsStream("/lightgbm/" + name);
+        assertThat(input).as("test resource lightgbm/%s", name).isNotNull();
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    private record Row(double[] features, double expected) {
+    }
+}
@@ -0,0 +1,187 @@
+package com.bankleads.bank_leads_backend.util;
+
+import com.bankleads.bank_leads_backend.model.CanonicalField;
+import com.bankleads.bank_leads_backend.model.CanonicalField.FieldType;
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.Example;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A compiled RowPlan must report the same errors and normalized values as the per-row path it replaced
+ * (CsvValidationUtil.validateRow, LeadNormalizationUtil.normalizeRowValues and the identifier checks that
+ * CsvParserUtil ran on the header-keyed row map).
+ */
+class RowPlanTest {
+
+    // Aliases of the same canonical field, case/space variants, unmapped and canonical-only headers
+    private static final List<String> HEADERS = List.of(
+            "Name", "full name", "phone", "Mobile", "contact_number", "Phone Number", "email", "Email ID", "mail",
+            "E_Mail", "aadhar", "Aadhaar Number", "aadhar_no", "City", "dob", "is_active", "score", "notes");
+
+    private static final List<String> VALUES = List.of(
+            "", "   ", "Ravi Kumar", " Asha ", "9876543210", "+91 91234 56789", "12345", "ravi@example.com",
+            " Asha@Example.COM ", "not-an-email", "1234 5678 9012", "1234", "2024-01-31", "31/01/2024", "yes",
+            "maybe", "42", "4.5e1", "abc");
+
+    private static final String IDENTIFIER_REQUIRED =
+            "At least one valid identifier (phone_number, email, or aadhar_number) is required";
+
+    private static final List<CanonicalField> FIELDS = List.of(
+            field("name", FieldType.String, true, true),
+            field("phone_number", FieldType.Phone, false, true),
+            field("email", FieldType.Email, false, true),
+            field("aadhar_number", FieldType.Number, false, true),
+            field("City", FieldType.String, true, true),
+            field("dob", FieldType.Date, false, true),
+            field("is_active", FieldType.Boolean, false, true),
+            field("score", FieldType.Number, true, false));
+
+    @Property(tries = 3000)
+    void matchesPerRowPath(@ForAll("rows") Row row, @ForAll("fieldSets") List<CanonicalField> fields) {
+        assertSameOutcome(row.headers, fields, row.values);
+    }
+
+    @Example
+    void aliasesOfOneFieldResolveLikeTheRowMap() {
+        // Both columns map to phone_number / email; the old map iteration order decides which value is kept
+        assertSameOutcome(List.of("mobile", "phone", "email", "mail"), FIELDS,
+                new String[]{"9876543210", "9123456789", "a@example.com", "b@example.com"});
+        assertSameOutcome(List.of("e_mail", "email_id", "Phone Number", "contact_number"), FIELDS,
+                new String[]{"a@example.com", "b@example.com", "9876543210", "not-a-phone"});
+    }
+
+    @Example
+    void repeatedHeaderKeepsLastColumn() {
+        assertSameOutcome(List.of("email", "name", "email"), FIELDS,
+                new String[]{"first@example.com", "Ravi", "second@example.com"});
+    }
+
+    @Example
+    void missingRequiredFieldsAndTypeErrors() {
+        // name and City are required but have no column; dob and is_active carry bad values
+        assertSameOutcome(List.of("phone", "dob", "is_active"), FIELDS,
+                new String[]{"12345", "yesterday", "maybe"});
+        // required column present but blank
+        assertSameOutcome(List.of("Name", "City", "email"), FIELDS, new String[]{"  ", "", "x@example.com"});
+    }
+
+    @Example
+    void noCanonicalFieldsOnlyNormalizes() {
+        assertSameOutcome(List.of("Name", "mobile", "notes"), null, new String[]{" Asha ", "+91 98765 43210", "x"});
+        assertSameOutcome(List.of("Name", "mobile", "notes"), List.of(), new String[]{"", "12", "x"});
+    }
+
+    private static void assertSameOutcome(List<String> headers, List<CanonicalField> fields, String[] values) {
+        Outcome expected = Reference.parse(headers, fields, values);
+
+        RowPlan plan = RowPlan.compile(headers, fields);
+        List<String> errors = plan.validate(values);
+        Map<String, String> normalized = plan.normalize(values);
+        if (errors.isEmpty()) {
+            if (!LeadNormalizationUtil.validateIdentifiers(normalized)) {
+                errors = new ArrayList<>(plan.identifierIssues(values, normalized));
+                errors.add(IDENTIFIER_REQUIRED);
+            }
+        }
+
+        assertThat(plan.rawRow(values)).isEqualTo(expected.rowData);
+        assertThat(errors).isEqualTo(expected.errors);
+        assertThat(normalized).isEqualTo(expected.normalized);
+    }
+
+    @Provide
+    Arbitrary<Row> rows() {
+        // Duplicates allowed, so the same header or two aliases of one field often occur together
+        return Arbitraries.of(HEADERS).list().ofMinSize(1).ofMaxSize(8).flatMap(headers ->
+                Arbitraries.of(VALUES).array(String[].class).ofSize(headers.size()).map(values -> new Row(headers, values)));
+    }
+
+    @Provide
+    Arbitrary<List<CanonicalField>> fieldSets() {
+        return Arbitraries.oneOf(
+                Arbitraries.just(FIELDS),
+                Arbitraries.subsetOf(FIELDS).map(ArrayList::new),
+                Arbitraries.just(null));
+    }
+
+    private static CanonicalField field(String name, FieldType type, boolean required, boolean active) {
+        return CanonicalField.builder().fieldName(name).fieldType(type).isRequired(required).isActive(active).build();
+    }
+
+    private record Row(List<String> headers, String[] values) {
+    }
+
+    private record Outcome(Map<String, String> rowData, List<String> errors, Map<String, String> normalized) {
+    }
+
+    /**
+     * The per-row flow as CsvParserUtil ran it before RowPlan: a header-keyed map per row, validateRow against the
+     * active fields, then normalizeRowValues and the identifier format checks.
+     */
+    private static final class Reference {
+
+        static Outcome parse(List<String> headers, List<CanonicalField> canonicalFields, String[] values) {
+            Map<String, String> headerMapping = LeadNormalizationUtil.normalizeHeaders(headers.toArray(new String[0]));
+
+            Map<String, CanonicalField> fieldMap = new HashMap<>();
+            if (canonicalFields != null) {
+                for (CanonicalField field : canonicalFields) {
+                    if (field.getIsActive() != null && field.getIsActive()) {
+                        fieldMap.put(field.getFieldName().toLowerCase().trim(), field);
+                    }
+                }
+            }
+
+            Map<String, String> rowData = new HashMap<>();
+            for (int j = 0; j < headers.size(); j++) {
+                rowData.put(headers.get(j), values[j]);
+            }
+
+            if (canonicalFields != null && !canonicalFields.isEmpty()) {
+                CsvValidationUtil.ValidationResult rowValidation =
+                        CsvValidationUtil.validateRow(rowData, fieldMap, headerMapping);
+                if (!rowValidation.isValid()) {
+                    return new Outcome(rowData, rowValidation.getErrors(),
+                            LeadNormalizationUtil.normalizeRowValues(rowData, headerMapping));
+                }
+            }
+
+            Map<String, String> normalized = LeadNormalizationUtil.normalizeRowValues(rowData, headerMapping);
+            if (LeadNormalizationUtil.validateIdentifiers(normalized)) {
+                return new Outcome(rowData, List.of(), normalized);
+            }
+            List<String> errors = new ArrayList<>();
+            if (hasMappedNonEmptyValue(rowData, headerMapping, "email") && !normalized.containsKey("email")) {
+                errors.add("Invalid email format");
+            }
+            if (hasMappedNonEmptyValue(rowData, headerMapping, "phone_number") && !normalized.containsKey("phone_number")) {
+                errors.add("Invalid phone number");
+            }
+            if (hasMappedNonEmptyValue(rowData, headerMapping, "aadhar_number") && !normalized.containsKey("aadhar_number")) {
+                errors.add("Invalid aadhar number");
+            }
+            errors.add(IDENTIFIER_REQUIRED);
+            return new Outcome(rowData, errors, normalized);
+        }
+
+        private static boolean hasMappedNonEmptyValue(Map<String, String> rowData, Map<String, String> headerMapping,
+                                                      String canonicalKey) {
+            for (Map.Entry<String, String> entry : rowData.entrySet()) {
+                if (!canonicalKey.equals(headerMapping.get(entry.getKey()))) continue;
+                String v = entry.getValue();
+                if (v != null && !v.trim().isEmpty()) return true;
+            }
+            return false;
+        }
+    }
+}